@@ -0,0 +1,118 @@
+package sample.camera.bench;
+
+import java.lang.management.ManagementFactory;
+
+import sample.camera.image.FilterChain;
+import sample.camera.image.ImageFilters;
+import sample.camera.image.ImageScaler;
+
+/**
+ * vr[̕`揈iSocketCamera.CameraPreview.drawFrameĵAJavâ݂œ
+ * ԂŃIuWFNg𐶐ȂƂmF<br>
+ * tB^̓KpAgkA1XbhƕXbhłꂼJԂASXbh̊蓖ăoCg𐔂B
+ * 
+ * <pre>
+ * javac -encoding Shift_JIS -d out src/sample/camera/image/{ImageScaler,FilterChain,ImageFilters,WorkerThreads}.java bench/sample/camera/bench/RenderAllocationCheck.java
+ * java -cp out sample.camera.bench.RenderAllocationCheck
+ * </pre>
+ * 
+ * @author k-daigo
+ */
+public class RenderAllocationCheck {
+
+	// 摜̑傫i񏈗臒l𒴂傫j
+	private static final int SOURCE_WIDTH = 640;
+	private static final int SOURCE_HEIGHT = 480;
+	private static final int DEST_WIDTH = 800;
+	private static final int DEST_HEIGHT = 600;
+
+	// ԂƂ܂łɎs񐔁Av
+	private static final int WARMUP = 200;
+	private static final int FRAMES = 500;
+
+	public static void main(String[] args) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.out.println("thread allocated memory is not supported");
+			return;
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		int[] pixels = new int[SOURCE_WIDTH * SOURCE_HEIGHT];
+		long overhead = measurementOverhead(threads);
+		boolean ok = true;
+		int parallel = Math.max(2, Runtime.getRuntime().availableProcessors());
+		for (int threadCount : new int[] { 1, parallel }) {
+			FilterChain filters = new FilterChain(threadCount);
+			filters.add(ImageFilters.contrastStretch(16, 240));
+			filters.add(ImageFilters.grayscale());
+			filters.add(ImageFilters.sharpen(0.5f));
+			ImageScaler scaler = new ImageScaler(threadCount);
+
+			for (ImageScaler.Mode mode : ImageScaler.Mode.values()) {
+				int destWidth = mode == ImageScaler.Mode.BOX ? SOURCE_WIDTH / 2 : DEST_WIDTH;
+				int destHeight = mode == ImageScaler.Mode.BOX ? SOURCE_HEIGHT / 2 : DEST_HEIGHT;
+				for (int i = 0; i < WARMUP; i++) {
+					drawFrame(filters, scaler, pixels, destWidth, destHeight, mode);
+				}
+
+				long before = allocatedBytes(threads);
+				for (int i = 0; i < FRAMES; i++) {
+					drawFrame(filters, scaler, pixels, destWidth, destHeight, mode);
+				}
+				long allocated = Math.max(0, allocatedBytes(threads) - before - overhead);
+
+				System.out.println(threadCount + " thread(s) " + mode + ": " + allocated + " bytes / " + FRAMES + " frames");
+				// 1ɐIuWFNg΁Aŏł16oCg~ƂȂB
+				// JITv̗h炬ɂ鐔\oCg͋eA11oCgł邱ƂmF
+				ok &= allocated < FRAMES;
+			}
+			scaler.shutdown();
+			filters.shutdown();
+		}
+
+		System.out.println(ok ? "OK" : "NG: steady-state frames allocate");
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * drawFramẻfzł̏ƓɃtB^Agks
+	 */
+	private static void drawFrame(FilterChain filters, ImageScaler scaler, int[] pixels, int destWidth, int destHeight,
+			ImageScaler.Mode mode) {
+		for (int i = 0; i < pixels.length; i += 97) {
+			pixels[i] = 0xFF000000 | i;
+		}
+		filters.apply(pixels, SOURCE_WIDTH, SOURCE_HEIGHT);
+		scaler.scale(pixels, SOURCE_WIDTH, SOURCE_HEIGHT, destWidth, destHeight, mode);
+	}
+
+	/**
+	 * v̂蓖ĂoCgԂiXbhID̔z񓙁Bŏlgpj
+	 */
+	private static long measurementOverhead(com.sun.management.ThreadMXBean threads) {
+		long overhead = Long.MAX_VALUE;
+		for (int i = 0; i < 100; i++) {
+			long before = allocatedBytes(threads);
+			overhead = Math.min(overhead, allocatedBytes(threads) - before);
+		}
+		return overhead;
+	}
+
+	/**
+	 * SXbh̊蓖ăoCg̍vԂ
+	 */
+	private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+		long[] ids = threads.getAllThreadIds();
+		long[] bytes = threads.getThreadAllocatedBytes(ids);
+		long total = 0;
+		for (long b : bytes) {
+			if (b > 0) {
+				total += b;
+			}
+		}
+		return total;
+	}
+}
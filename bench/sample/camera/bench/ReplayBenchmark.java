@@ -0,0 +1,206 @@
+package sample.camera.bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import sample.camera.capture.CaptureIndex;
+import sample.camera.device.FileReplaySource;
+import sample.camera.device.FrameBuffer;
+import sample.camera.record.FrameDumpRecorder;
+import sample.camera.utils.JpegValidator;
+
+/**
+ * L^摜FileReplaySourceōĐAJpegValidatorŌ؂CaptureIndex֒ǋL鏈
+ * AndroidJVMŎsAʂsƂɓmFĎԂv<br>
+ * L^t@Cw肵Ȃꍇ́Aȉ摜ArŐ؂ꂽ摜Aꂽ摜܂ދL^𐶐B
+ * 
+ * <pre>
+ * javac -encoding Shift_JIS -cp (android.jar) -d out src/sample/camera/.../*.java bench/sample/camera/bench/ReplayBenchmark.java
+ * java -cp out sample.camera.bench.ReplayBenchmark [L^t@C] [JԂ]
+ * </pre>
+ * 
+ * @author k-daigo
+ */
+public class ReplayBenchmark {
+
+	// M̊isƂɓlƂj
+	private static final long BASE_TIME = 1000000000000L;
+
+	// L^̉摜A傫
+	private static final int GENERATED_FRAMES = 300;
+	private static final int GENERATED_WIDTH = 320;
+	private static final int GENERATED_HEIGHT = 240;
+
+	/**
+	 * 1̎s
+	 */
+	private static class Result {
+		private long digest;
+		private int frames;
+		private int indexed;
+		private int queried;
+		private long validCount;
+		private long truncatedCount;
+		private long corruptCount;
+		private long salvagedCount;
+		private long elapsedNanos;
+	}
+
+	public static void main(String[] args) throws IOException {
+		File dump;
+		if (args.length > 0) {
+			dump = new File(args[0]);
+		} else {
+			dump = File.createTempFile("replay", ".dump");
+			dump.deleteOnExit();
+			generate(dump);
+		}
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Result first = null;
+		for (int i = 0; i < runs; i++) {
+			Result result = run(dump);
+			System.out.println("run " + i + ": frames=" + result.frames + " indexed=" + result.indexed
+					+ " queried=" + result.queried + " valid=" + result.validCount + " truncated=" + result.truncatedCount
+					+ " corrupt=" + result.corruptCount + " salvaged=" + result.salvagedCount
+					+ " digest=" + Long.toHexString(result.digest)
+					+ " " + (result.elapsedNanos / Math.max(1, result.frames) / 1000) + " us/frame");
+
+			if (first == null) {
+				first = result;
+			} else if (result.digest != first.digest || result.frames != first.frames
+					|| result.indexed != first.indexed || result.queried != first.queried) {
+				System.out.println("NG: result differs from run 0");
+				System.exit(1);
+			}
+		}
+		if (first != null && first.queried != first.indexed) {
+			System.out.println("NG: query returned " + first.queried + " of " + first.indexed);
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * L^ĐA؂čɒǋL
+	 * 
+	 * @param dump L^t@C
+	 * @return s
+	 * @throws IOException
+	 */
+	private static Result run(File dump) throws IOException {
+		File indexFile = File.createTempFile("replay", ".idx");
+		indexFile.deleteOnExit();
+		if (!indexFile.delete()) {
+			throw new IOException("cannot delete: " + indexFile);
+		}
+
+		FileReplaySource source = new FileReplaySource(dump, 0, false, BASE_TIME);
+		FrameBuffer frame = new FrameBuffer(64 * 1024);
+		JpegValidator validator = new JpegValidator();
+		CaptureIndex index = CaptureIndex.open(indexFile);
+		CRC32 crc = new CRC32();
+		Result result = new Result();
+		long lastTime = BASE_TIME;
+
+		long start = System.nanoTime();
+		try {
+			while (source.read(frame)) {
+				byte[] data = frame.getData();
+				int status = validator.validate(data, frame.getLength());
+				if (status == JpegValidator.STATUS_TRUNCATED) {
+					data = frame.ensureCapacity(validator.getEnd() + 2);
+					validator.salvage(data);
+					status = JpegValidator.STATUS_VALID;
+				}
+
+				long time = frame.getTime();
+				update(crc, time);
+				update(crc, status);
+				update(crc, validator.getStart());
+				update(crc, validator.getEnd());
+				update(crc, validator.getWidth());
+				update(crc, validator.getHeight());
+
+				if (status == JpegValidator.STATUS_VALID) {
+					int offset = validator.getStart();
+					int length = validator.getEnd() - offset;
+					long contentHash = CaptureIndex.contentHash(data, offset, length);
+					update(crc, contentHash);
+					index.append(time, source.getSourceId(), length, contentHash, 0, "replay_" + result.frames + ".jpg");
+					result.indexed++;
+				}
+				lastTime = time;
+				result.frames++;
+			}
+			index.sync();
+			result.queried = index.query(source.getSourceId(), BASE_TIME, lastTime).size();
+		} finally {
+			source.close();
+			index.close();
+			indexFile.delete();
+		}
+		result.elapsedNanos = System.nanoTime() - start;
+
+		result.digest = crc.getValue();
+		result.validCount = validator.getValidCount();
+		result.truncatedCount = validator.getTruncatedCount();
+		result.corruptCount = validator.getCorruptCount();
+		result.salvagedCount = validator.getSalvagedCount();
+		return result;
+	}
+
+	/**
+	 * ȉ摜ɁArŐ؂ꂽ摜Aꂽ摜L^𐶐
+	 * 
+	 * @param dump o̓t@C
+	 * @throws IOException
+	 */
+	private static void generate(File dump) throws IOException {
+		BufferedImage image = new BufferedImage(GENERATED_WIDTH, GENERATED_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FrameDumpRecorder recorder = new FrameDumpRecorder(dump);
+		try {
+			for (int i = 0; i < GENERATED_FRAMES; i++) {
+				g.setColor(Color.DARK_GRAY);
+				g.fillRect(0, 0, GENERATED_WIDTH, GENERATED_HEIGHT);
+				g.setColor(Color.WHITE);
+				g.fillRect((i * 4) % GENERATED_WIDTH, GENERATED_HEIGHT / 3, 40, 40);
+				g.drawString("frame " + i, 10, 20);
+
+				out.reset();
+				ImageIO.write(image, "jpeg", out);
+				byte[] data = out.toByteArray();
+				int length = data.length;
+				if (i % 50 == 10) {
+					// rŐ؂ꂽ摜
+					length = length * 2 / 3;
+				} else if (i % 50 == 30) {
+					// ꂽ摜
+					data[0] = 0;
+				}
+				recorder.addFrame(data, length, BASE_TIME + i * 100L + (i % 7));
+			}
+		} finally {
+			g.dispose();
+			recorder.close();
+		}
+	}
+
+	/**
+	 * lCRCɉ
+	 */
+	private static void update(CRC32 crc, long value) {
+		for (int i = 0; i < 8; i++) {
+			crc.update((int) (value >>> (i * 8)));
+		}
+	}
+}
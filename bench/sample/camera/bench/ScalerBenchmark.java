@@ -0,0 +1,126 @@
+package sample.camera.bench;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import sample.camera.image.ImageScaler;
+
+/**
+ * ImageScaler̊gkԂv<br>
+ * ԕ@1XbhƃRÃXbhŌvArƂJava2D̃oCjAԂł̕`
+ * iJVMłCanvas.drawBitmap(filterL)ɑ鏈jvB
+ * 
+ * <pre>
+ * javac -encoding Shift_JIS -d out src/sample/camera/image/{ImageScaler,WorkerThreads}.java bench/sample/camera/bench/ScalerBenchmark.java
+ * java -cp out sample.camera.bench.ScalerBenchmark [JԂ]
+ * </pre>
+ * 
+ * @author k-daigo
+ */
+public class ScalerBenchmark {
+
+	// vgki̕AAo͂̕Aj
+	private static final int[][] SIZES = {
+		{ 640, 480, 320, 240 },
+		{ 1280, 960, 480, 360 },
+		{ 320, 240, 800, 600 },
+	};
+
+	// vOɎs
+	private static final int WARMUP = 20;
+
+	// ʂgpāAv鏈œKŏȂ悤ɂ
+	private static volatile long sink;
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int cores = Runtime.getRuntime().availableProcessors();
+		ImageScaler serial = new ImageScaler(1);
+		ImageScaler parallel = new ImageScaler(Math.max(2, cores));
+
+		try {
+			for (int[] size : SIZES) {
+				int srcWidth = size[0];
+				int srcHeight = size[1];
+				int dstWidth = size[2];
+				int dstHeight = size[3];
+				int[] src = createImage(srcWidth, srcHeight);
+				System.out.println(srcWidth + "x" + srcHeight + " -> " + dstWidth + "x" + dstHeight);
+
+				for (ImageScaler.Mode mode : ImageScaler.Mode.values()) {
+					if (mode == ImageScaler.Mode.BOX && dstWidth > srcWidth) {
+						continue;
+					}
+					System.out.println("  " + mode + " 1 thread: " + format(measure(serial, src, size, mode, iterations))
+							+ "  " + Math.max(2, cores) + " threads: " + format(measure(parallel, src, size, mode, iterations)));
+				}
+				System.out.println("  Java2D bilinear: " + format(measureJava2D(src, size, iterations)));
+			}
+		} finally {
+			serial.shutdown();
+			parallel.shutdown();
+		}
+	}
+
+	/**
+	 * ImageScaler1񂠂̎ԂԂ
+	 */
+	private static long measure(ImageScaler scaler, int[] src, int[] size, ImageScaler.Mode mode, int iterations) {
+		long checksum = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			checksum += scaler.scale(src, size[0], size[1], size[2], size[3], mode)[0];
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			checksum += scaler.scale(src, size[0], size[1], size[2], size[3], mode)[i % (size[2] * size[3])];
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += checksum;
+		return elapsed / iterations;
+	}
+
+	/**
+	 * Java2D̃oCjAԂł̕`1񂠂̎ԂԂ
+	 */
+	private static long measureJava2D(int[] src, int[] size, int iterations) {
+		BufferedImage srcImage = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+		System.arraycopy(src, 0, ((DataBufferInt) srcImage.getRaster().getDataBuffer()).getData(), 0, src.length);
+		BufferedImage dstImage = new BufferedImage(size[2], size[3], BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = dstImage.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		try {
+			for (int i = 0; i < WARMUP; i++) {
+				g.drawImage(srcImage, 0, 0, size[2], size[3], null);
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				g.drawImage(srcImage, 0, 0, size[2], size[3], null);
+			}
+			return (System.nanoTime() - start) / iterations;
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * KƎȖ͗l܂މ摜𐶐
+	 */
+	private static int[] createImage(int width, int height) {
+		int[] pixels = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int r = x * 255 / width;
+				int g = y * 255 / height;
+				int b = ((x / 4 + y / 4) & 1) * 255;
+				pixels[y * width + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+			}
+		}
+		return pixels;
+	}
+
+	private static String format(long nanos) {
+		return (nanos / 1000) + " us";
+	}
+}
@@ -14,14 +14,22 @@ public final class R {
         public static final int icon=0x7f020000;
     }
     public static final class id {
+        public static final int buttonBurst=0x7f050005;
         public static final int buttonCameraMotion=0x7f050004;
         public static final int buttonCaptur=0x7f050002;
+        public static final int buttonGallery=0x7f050009;
+        public static final int buttonRecord=0x7f050007;
+        public static final int buttonTimeLapse=0x7f050008;
+        public static final int buttonTimeShift=0x7f050006;
         public static final int cameraView=0x7f050003;
         public static final int capturView=0x7f050001;
         public static final int frameLayout=0x7f050000;
+        public static final int galleryView=0x7f05000a;
+        public static final int overlayView=0x7f05000b;
     }
     public static final class layout {
         public static final int captur_confirm=0x7f030000;
+        public static final int gallery=0x7f030002;
         public static final int preview=0x7f030001;
     }
     public static final class string {
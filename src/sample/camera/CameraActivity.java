@@ -1,19 +1,39 @@
 package sample.camera;
 
 import java.io.IOException;
+import java.util.List;
 
+import sample.camera.analysis.FrameStatistics;
+import sample.camera.analysis.MotionDetector;
+import sample.camera.capture.Capture;
+import sample.camera.capture.CaptureStore;
+import sample.camera.capture.RetentionManager;
+import sample.camera.capture.SaveRequest;
+import sample.camera.capture.SaveService;
 import sample.camera.device.SocketCamera;
+import sample.camera.image.FrameDecoder;
+import sample.camera.image.ZoomState;
+import sample.camera.record.DvrBuffer;
+import sample.camera.record.TimeLapseScheduler;
+import sample.camera.utils.CaptureNameUtil;
+import sample.camera.utils.JpegUtil;
 
 import android.app.Activity;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
 import android.view.Window;
 import android.widget.Button;
+import android.widget.Toast;
 
 /**
  * JActivity
@@ -21,12 +41,31 @@ import android.widget.Button;
  * @author k-daigo
  */
 public class CameraActivity extends Activity {
+	// o[XgBeŕۑԁiOAj
+	private static final long BURST_PRE_MILLIS = 3000;
+	private static final long BURST_POST_MILLIS = 2000;
+
+	// ^CVtgp̋L^̈iZOgA1ZOg̃TCYj
+	private static final int DVR_SEGMENT_COUNT = 8;
+	private static final int DVR_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+	// ^CVtgŖ߂鎞
+	private static final long TIME_SHIFT_MILLIS = 30 * 1000;
+
+	// ^CvXBe̊Ԋu
+	private static final long TIME_LAPSE_INTERVAL = 60 * 1000;
+
 	private SurfaceView cameraView;
+	private OverlayView overlayView;
 
 	// private Camera camera;
 	private SocketCamera camera;
 	private Button buttonCameraMotion;
 
+	// s`ŃY[AhbOňړA_u^bvœ{ɖ߂
+	private ScaleGestureDetector scaleGestureDetector;
+	private GestureDetector gestureDetector;
+
 	/**
 	 * SurfaceCallback
 	 */
@@ -61,10 +100,136 @@ public class CameraActivity extends Activity {
 		 */
 		public void surfaceDestroyed(SurfaceHolder holder) {
 			camera.stopPreview();
+
+			MotionDetector detector = camera.getMotionDetector();
+			if (detector != null) {
+				detector.setListener(null);
+			}
+			camera.getFrameStatistics().setListener(null);
+			overlayView.clearMotionRect();
 			camera = null;
 		}
 	};
 
+	/**
+	 * oListenerivr[̃XbhĂ΂j
+	 */
+	private MotionDetector.Listener motionListener = new MotionDetector.Listener() {
+		// 摜̕\it[ɐȂj
+		private final Rect displayRect = new Rect();
+
+		/**
+		 * o<br>
+		 * 摜̍W\̍Wɕϊċ\
+		 */
+		public void onMotion(MotionDetector detector, Rect bounds, int cells, long time) {
+			int sourceWidth = detector.getSourceWidth();
+			int sourceHeight = detector.getSourceHeight();
+			SocketCamera.getInstance().getDisplayRect(sourceWidth, sourceHeight, this.displayRect);
+
+			float scaleX = (float) this.displayRect.width() / sourceWidth;
+			float scaleY = (float) this.displayRect.height() / sourceHeight;
+			overlayView.setMotionRect(this.displayRect.left + bounds.left * scaleX, this.displayRect.top + bounds.top * scaleY,
+					this.displayRect.left + bounds.right * scaleX, this.displayRect.top + bounds.bottom * scaleY);
+		}
+
+		/**
+		 * Ȃ
+		 */
+		public void onMotionEnd(MotionDetector detector, long time) {
+			overlayView.clearMotionRect();
+		}
+	};
+
+	/**
+	 * Io̓vListenerivr[̃XbhĂ΂j
+	 */
+	private FrameStatistics.Listener statisticsListener = new FrameStatistics.Listener() {
+
+		/**
+		 * J̏Ԃς
+		 */
+		public void onStatusChanged(FrameStatistics statistics, int status) {
+			if (status == 0) {
+				overlayView.setStatusText(null);
+				return;
+			}
+
+			StringBuilder text = new StringBuilder();
+			if ((status & FrameStatistics.STATUS_DARK) != 0) {
+				text.append("Â܂ ");
+			}
+			if ((status & FrameStatistics.STATUS_WASHED_OUT) != 0) {
+				text.append("тĂ܂ ");
+			}
+			if ((status & FrameStatistics.STATUS_FROZEN) != 0) {
+				text.append("摜XV܂");
+			}
+			overlayView.setStatusText(text.toString().trim());
+		}
+	};
+
+	/**
+	 * s`Listener
+	 */
+	private ScaleGestureDetector.SimpleOnScaleGestureListener scaleListener = new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+
+		/**
+		 * s`쎞
+		 */
+		@Override
+		public boolean onScale(ScaleGestureDetector detector) {
+			ZoomState zoom = SocketCamera.getInstance().getZoomState();
+			zoom.zoomBy(detector.getScaleFactor(), detector.getFocusX() / cameraView.getWidth(), detector.getFocusY() / cameraView.getHeight());
+			SocketCamera.getInstance().getFetchScheduler().wake();
+			return true;
+		}
+	};
+
+	/**
+	 * hbOA_u^bvListener
+	 */
+	private GestureDetector.SimpleOnGestureListener gestureListener = new GestureDetector.SimpleOnGestureListener() {
+
+		/**
+		 * hbO
+		 */
+		@Override
+		public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+			ZoomState zoom = SocketCamera.getInstance().getZoomState();
+			zoom.panBy(distanceX / cameraView.getWidth(), distanceY / cameraView.getHeight());
+			SocketCamera.getInstance().getFetchScheduler().wake();
+			return true;
+		}
+
+		/**
+		 * _u^bv
+		 */
+		@Override
+		public boolean onDoubleTap(MotionEvent e) {
+			SocketCamera.getInstance().getZoomState().reset();
+			SocketCamera.getInstance().getFetchScheduler().wake();
+			return true;
+		}
+	};
+
+	/**
+	 * vr[̃^b`Listener
+	 */
+	private View.OnTouchListener previewTouchListener = new View.OnTouchListener() {
+
+		/**
+		 * ^b`
+		 */
+		public boolean onTouch(View view, MotionEvent event) {
+			scaleGestureDetector.onTouchEvent(event);
+			if (!scaleGestureDetector.isInProgress()) {
+				gestureDetector.onTouchEvent(event);
+			}
+			return true;
+		}
+	};
+
 	/**
 	 * Create
 	 */
@@ -74,6 +239,15 @@ public class CameraActivity extends Activity {
 
 		requestWindowFeature(Window.FEATURE_NO_TITLE);
 		setContentView(R.layout.preview);
+
+		// v߂ĂẴLv`㏑Ȃ悤Ãt@C̖O𕥂o
+		String[] names = fileList();
+		for (int i = 0; i < names.length; i++) {
+			CaptureNameUtil.advance(names[i]);
+		}
+
+		// ۑĂۑԂ߂Lv`폜
+		RetentionManager.getInstance(this).requestRun();
 	}
 
 	/**
@@ -92,31 +266,237 @@ public class CameraActivity extends Activity {
 	private void startCamera() {
 		// eQƂ擾
 		this.camera = SocketCamera.getInstance();
+
+		// ^CVtgp̋L^Jn
+		if (this.camera.getDvrBuffer() == null) {
+			try {
+				this.camera.setDvrBuffer(new DvrBuffer(getDir("dvr", MODE_PRIVATE), DVR_SEGMENT_COUNT, DVR_SEGMENT_SIZE));
+			} catch (IOException e) {
+				Log.w("CameraActivity", "dvr disabled", e);
+			}
+		}
 		this.cameraView = (SurfaceView) findViewById(R.id.cameraView);
+		this.overlayView = (OverlayView) findViewById(R.id.overlayView);
+
+		// o͈͂\
+		MotionDetector detector = this.camera.getMotionDetector();
+		if (detector == null) {
+			detector = new MotionDetector();
+			this.camera.setMotionDetector(detector);
+		}
+		detector.setListener(motionListener);
+
+		// J̏Ԃ\iω̂ݒʒm邽߁Ȁ݂Ԃɔfj
+		FrameStatistics statistics = this.camera.getFrameStatistics();
+		statistics.setListener(statisticsListener);
+		statisticsListener.onStatusChanged(statistics, statistics.getStatus());
 
 		// J̃R[obNݒ
 		SurfaceHolder holder = cameraView.getHolder();
 		holder.addCallback(surfaceHolderCallback);
 		holder.setType(SurfaceHolder.SURFACE_TYPE_NORMAL);
 
+		// Y[ݒ
+		this.scaleGestureDetector = new ScaleGestureDetector(this, scaleListener);
+		this.gestureDetector = new GestureDetector(this, gestureListener);
+		this.cameraView.setOnTouchListener(previewTouchListener);
+
 		this.buttonCameraMotion = (Button) findViewById(R.id.buttonCameraMotion);
 		this.buttonCameraMotion.setText("Lv`~");
 	}
 
 	/**
-	 * Lv` Button click
+	 * Lv` Button click<br>
+	 * t𑜓x̐Î~擾A擾łȂꍇ̓vr[摜gp
 	 * 
 	 * @param view
 	 */
 	public void onCapturButtonClick(View view) {
+		view.setEnabled(false);
+		this.camera.takePicture(pictureCallback);
+	}
+
+	/**
+	 * Î~擾Callback
+	 */
+	private SocketCamera.PictureCallback pictureCallback = new SocketCamera.PictureCallback() {
+
+		/**
+		 * Î~̎擾
+		 */
+		public void onPictureTaken(byte[] data, final SocketCamera camera) {
+			final long time = System.currentTimeMillis();
+			ZoomState zoom = camera.getZoomState();
+
+			byte[] jpeg = data;
+			if (jpeg == null || !JpegUtil.isJpeg(jpeg, 0, jpeg.length)) {
+				jpeg = camera.getCapturData();
+			}
+
+			// Y[͐؂o摜ۑ
+			Bitmap still = null;
+			if (zoom.isZoomed()) {
+				if (data != null) {
+					still = new FrameDecoder().decode(data, data.length, zoom, 0, 0);
+				}
+				if (still == null) {
+					still = camera.getCaptur();
+				}
+				jpeg = null;
+			}
+
+			final Bitmap captur = still;
+			final byte[] capturData = jpeg;
+			runOnUiThread(new Runnable() {
+				public void run() {
+					startCapturConfirm(captur, capturData, camera.getCameraId(), time);
+				}
+			});
+		}
+	};
+
+	/**
+	 * Lv`mFʂ\
+	 * 
+	 * @param captur Lv`摜
+	 * @param capturData Lv`摜JPEGf[^iꍇnullj
+	 * @param cameraId JID
+	 * @param time Lv`
+	 */
+	private void startCapturConfirm(Bitmap captur, byte[] capturData, String cameraId, long time) {
+		findViewById(R.id.buttonCaptur).setEnabled(true);
+		if (captur == null && capturData == null) {
+			Toast.makeText(this, "摜擾ł܂ł", Toast.LENGTH_LONG).show();
+			return;
+		}
+
 		Intent intent = new Intent();
 		Log.d("aa", CapturConfirmActivity.class.getPackage().getName());
 		Log.d("aa", CapturConfirmActivity.class.getCanonicalName());
 		intent.setClassName(CapturConfirmActivity.class.getPackage().getName(), CapturConfirmActivity.class.getCanonicalName());
 
-		// Lv`摜ۑ
-		intent.putExtra("captur", this.camera.getCaptur());
+		// Lv`摜CaptureStoreɊi[AID̂ݓn
+		long id = CaptureStore.getInstance().put(new Capture(capturData, captur, cameraId, time));
+		intent.putExtra(CaptureStore.EXTRA_CAPTURE_ID, id);
+
+		startActivity(intent);
+	}
+
+	/**
+	 * o[Xg Button click<br>
+	 * Ỏ摜܂Ƃ߂ĕۑ
+	 * 
+	 * @param view
+	 */
+	public void onBurstButtonClick(View view) {
+		view.setEnabled(false);
+		this.camera.takeBurst(BURST_PRE_MILLIS, BURST_POST_MILLIS, burstCallback);
+	}
+
+	/**
+	 * o[XgBeCallback
+	 */
+	private SocketCamera.BurstCallback burstCallback = new SocketCamera.BurstCallback() {
+
+		/**
+		 * o[XgBe̊
+		 */
+		public void onBurstTaken(List<Capture> captures, SocketCamera camera) {
+			SaveService saveService = SaveService.getInstance(CameraActivity.this);
+
+			int saved = 0;
+			try {
+				for (Capture capture : captures) {
+					// ̖ʂœ摜΂Ȃ悤Ad͕ۑȂ
+					SaveRequest request = capture.toSaveRequest(CaptureNameUtil.nextName());
+					request.setSkipDuplicate(true);
+					saveService.put(request, null);
+					saved++;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
 
+			final int count = saved;
+			runOnUiThread(new Runnable() {
+				public void run() {
+					findViewById(R.id.buttonBurst).setEnabled(true);
+					Toast.makeText(CameraActivity.this, count + "ۑ܂", Toast.LENGTH_LONG).show();
+				}
+			});
+		}
+	};
+
+	/**
+	 * ^CVtg Button click<br>
+	 * Cu\͋L^摜OĐAĐ̓Cu\ɖ߂
+	 * 
+	 * @param view
+	 */
+	public void onTimeShiftButtonClick(View view) {
+		if (this.camera.isPlayingBack()) {
+			this.camera.stopPlayback();
+			Toast.makeText(this, "Cu\ɖ߂܂", Toast.LENGTH_SHORT).show();
+			return;
+		}
+
+		if (!this.camera.startPlayback(System.currentTimeMillis() - TIME_SHIFT_MILLIS)) {
+			Toast.makeText(this, "L^܂", Toast.LENGTH_SHORT).show();
+			return;
+		}
+		Toast.makeText(this, "L^Đ܂", Toast.LENGTH_SHORT).show();
+	}
+
+	/**
+	 * ^ Button click<br>
+	 * ^撆łȂꍇ͘^JnA^撆̏ꍇ͏I
+	 * 
+	 * @param view
+	 */
+	public void onRecordButtonClick(View view) {
+		Button button = (Button) view;
+		try {
+			if (this.camera.isRecording()) {
+				int count = this.camera.stopRecording();
+				button.setText("^");
+				Toast.makeText(this, count + "^悵܂", Toast.LENGTH_SHORT).show();
+				return;
+			}
+
+			this.camera.startRecording(getFileStreamPath(CaptureNameUtil.nextName() + ".avi"));
+			button.setText("^~");
+		} catch (IOException e) {
+			e.printStackTrace();
+			Toast.makeText(this, "^Ɏs܂", Toast.LENGTH_SHORT).show();
+		}
+	}
+
+	/**
+	 * ^CvX Button click<br>
+	 * ~̏ꍇ͎BeJnABȅꍇ͒~Čʂ\
+	 * 
+	 * @param view
+	 */
+	public void onTimeLapseButtonClick(View view) {
+		TimeLapseScheduler scheduler = TimeLapseScheduler.getInstance();
+		if (scheduler.isRunning()) {
+			scheduler.stop();
+			Toast.makeText(this, scheduler.getSummary(), Toast.LENGTH_LONG).show();
+			return;
+		}
+
+		scheduler.start(this, this.camera, TIME_LAPSE_INTERVAL);
+		Toast.makeText(this, "^CvXBeJn܂", Toast.LENGTH_SHORT).show();
+	}
+
+	/**
+	 * M[ Button click
+	 * 
+	 * @param view
+	 */
+	public void onGalleryButtonClick(View view) {
+		Intent intent = new Intent();
+		intent.setClassName(GalleryActivity.class.getPackage().getName(), GalleryActivity.class.getCanonicalName());
 		startActivity(intent);
 	}
 
@@ -1,11 +1,13 @@
 package sample.camera;
 
-import java.io.BufferedOutputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
-import sample.camera.utils.BitmapUtil;
-import sample.camera.utils.DateUtil;
+import sample.camera.capture.Capture;
+import sample.camera.capture.CaptureStore;
+import sample.camera.capture.SaveRequest;
+import sample.camera.capture.SaveService;
+import sample.camera.image.FrameDecoder;
+import sample.camera.utils.CaptureNameUtil;
 
 import android.app.Activity;
 import android.content.Context;
@@ -23,9 +25,17 @@ import android.widget.Toast;
  * @author k-daigo
  */
 public class CapturConfirmActivity extends Activity {
+	// mFʂɕ\摜̍őTCY
+	private static final int PREVIEW_WIDTH = 640;
+	private static final int PREVIEW_HEIGHT = 480;
+
 	private ImageView capturView;
 	private Bitmap capturBitmap;
 
+	// Lv`iCaptureStoreQƂj
+	private long capturId;
+	private Capture captur;
+
 	/**
 	 * Create
 	 */
@@ -41,40 +51,73 @@ public class CapturConfirmActivity extends Activity {
 
 		Intent intent = getIntent();
 		
-		this.capturBitmap = intent.getParcelableExtra("captur");
+		this.capturId = intent.getLongExtra(CaptureStore.EXTRA_CAPTURE_ID, -1);
+		this.captur = CaptureStore.getInstance().get(this.capturId);
+		if (this.captur == null) {
+			// ς݁ivZX̍ċNj
+			finish();
+			return;
+		}
+
+		byte[] capturData = this.captur.getJpegData();
+		if (capturData != null) {
+			this.capturBitmap = new FrameDecoder().decode(capturData, capturData.length, null, PREVIEW_WIDTH, PREVIEW_HEIGHT);
+		} else {
+			this.capturBitmap = this.captur.getBitmap();
+		}
 		this.capturView.setImageBitmap(this.capturBitmap);
 	}
 
 	/**
-	 * ۑ Button click
+	 * Destroy<br>
+	 * ʂꍇ̓Lv`
+	 */
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+
+		if (isFinishing()) {
+			CaptureStore.getInstance().release(this.capturId);
+		}
+	}
+
+	/**
+	 * ۑ Button click<br>
+	 * ۑ̓obNOEhōsAʂ͂ɕ
 	 * 
 	 * @param view
 	 */
 	public void onSaveButtonClick(View view)
 	{
-		String filePath = DateUtil.getFormatDate("yyyyMMddhhmmssS") + ".png";
-        byte[] pngData = BitmapUtil.bmp2data(this.capturBitmap, Bitmap.CompressFormat.PNG, 100);
-        
-        BufferedOutputStream bos = null;
-    	try {
-            bos = new BufferedOutputStream(openFileOutput(filePath, Context.MODE_WORLD_READABLE));
-			bos.write(pngData, 0, pngData.length);
-			bos.flush();
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				if(bos != null){
-					bos.close();
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		String fileName = CaptureNameUtil.nextName();
+
+		SaveRequest request = this.captur.toSaveRequest(fileName);
+
+		if (!SaveService.getInstance(this).save(request, new SaveResultCallback(getApplicationContext()))) {
+			Toast.makeText(this, "ۑ҂t̂ߕۑł܂", Toast.LENGTH_LONG).show();
+			return;
 		}
-		
-		Toast.makeText(this, "ۑ܂", Toast.LENGTH_LONG).show();
+
 		finish();
 	}
+
+	/**
+	 * ۑʂʒmCallback<br>
+	 * ʂɌĂ΂邽߁AApplicationContextgp
+	 */
+	private static class SaveResultCallback implements SaveService.Callback {
+		private final Context context;
+
+		public SaveResultCallback(Context context) {
+			this.context = context;
+		}
+
+		public void onSaved(SaveRequest request) {
+			Toast.makeText(this.context, "ۑ܂", Toast.LENGTH_LONG).show();
+		}
+
+		public void onSaveFailed(SaveRequest request, IOException e) {
+			Toast.makeText(this.context, "ۑɎs܂", Toast.LENGTH_LONG).show();
+		}
+	}
 }
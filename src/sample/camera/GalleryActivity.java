@@ -0,0 +1,118 @@
+package sample.camera;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import sample.camera.capture.ThumbnailCache;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.Window;
+import android.widget.BaseAdapter;
+import android.widget.GridView;
+import android.widget.ImageView;
+
+/**
+ * ۑLv`̈ꗗActivity
+ * 
+ * @author k-daigo
+ */
+public class GalleryActivity extends Activity {
+	private GridView galleryView;
+	private ThumbnailCache thumbnailCache;
+
+	// Lv`̃t@CiVj
+	private final List<String> captures = new ArrayList<String>();
+
+	/**
+	 * Create
+	 */
+	@Override
+	public void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+
+		requestWindowFeature(Window.FEATURE_NO_TITLE);
+		setContentView(R.layout.gallery);
+
+		this.thumbnailCache = ThumbnailCache.getInstance(this);
+		this.galleryView = (GridView) findViewById(R.id.galleryView);
+		this.galleryView.setAdapter(adapter);
+	}
+
+	/**
+	 * Resume
+	 */
+	@Override
+	protected void onResume() {
+		super.onResume();
+
+		this.loadCaptures();
+	}
+
+	/**
+	 * Lv`̃t@C̈ꗗǂݍ
+	 */
+	private void loadCaptures() {
+		this.captures.clear();
+		String[] files = fileList();
+		if (files != null) {
+			for (String file : files) {
+				if (file.endsWith(".jpg") || file.endsWith(".png")) {
+					this.captures.add(file);
+				}
+			}
+		}
+		Collections.sort(this.captures, Collections.reverseOrder());
+		this.adapter.notifyDataSetChanged();
+	}
+
+	/**
+	 * ꗗAdapter<br>
+	 * TlC̓LbVɂ΂ɕ\Aꍇ͔񓯊Ɏ擾
+	 */
+	private BaseAdapter adapter = new BaseAdapter() {
+
+		public int getCount() {
+			return captures.size();
+		}
+
+		public Object getItem(int position) {
+			return captures.get(position);
+		}
+
+		public long getItemId(int position) {
+			return position;
+		}
+
+		public View getView(int position, View convertView, ViewGroup parent) {
+			final ImageView imageView;
+			if (convertView == null) {
+				imageView = new ImageView(GalleryActivity.this);
+				imageView.setScaleType(ImageView.ScaleType.CENTER_CROP);
+			} else {
+				imageView = (ImageView) convertView;
+			}
+
+			String name = captures.get(position);
+			imageView.setTag(name);
+
+			Bitmap thumbnail = thumbnailCache.getCached(name);
+			imageView.setImageBitmap(thumbnail);
+			if (thumbnail == null) {
+				thumbnailCache.load(name, new ThumbnailCache.Callback() {
+					public void onThumbnailLoaded(String name, Bitmap thumbnail) {
+						// ėpĕʂ̃Lv`\Ăꍇ͔fȂ
+						if (name.equals(imageView.getTag())) {
+							imageView.setImageBitmap(thumbnail);
+						}
+					}
+				});
+			}
+			return imageView;
+		}
+	};
+}
@@ -4,34 +4,124 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
 /**
- * ʂɃKChC\NX
+ * ʂɃKChCAó͈AJ̏Ԃ\NX
  * 
  * @author k-daigo
  */
 public class OverlayView extends View {
+	// KChC`pi`斈ɐȂj
+	private final Paint paint = new Paint();
+
+	// o͈͂̕`p
+	private final Paint motionPaint = new Paint();
+
+	// ó͈i\Ȃꍇ͋j
+	private final RectF motionRect = new RectF();
+
+	// J̏Ԃ̕`p
+	private final Paint statusPaint = new Paint();
+
+	// J̏ԁi\Ȃꍇnullj
+	private volatile String statusText = null;
+
+	private volatile boolean guideVisible = false;
+
 	public OverlayView(Context context) {
 		super(context);
+		this.init();
 	}
 
 	public OverlayView(Context context, AttributeSet attrs) {
 		super(context, attrs);
+		this.init();
 	}
 
 	public OverlayView(Context context, AttributeSet attrs, int defStyle) {
 		super(context, attrs, defStyle);
+		this.init();
+	}
+
+	/**
+	 * `ɎgpPaint
+	 */
+	private void init() {
+		this.paint.setColor(Color.RED);
+		this.motionPaint.setColor(Color.YELLOW);
+		this.motionPaint.setStyle(Paint.Style.STROKE);
+		this.motionPaint.setStrokeWidth(2);
+		this.statusPaint.setColor(Color.RED);
+		this.statusPaint.setTextSize(16);
+		this.statusPaint.setAntiAlias(true);
+	}
+
+	/**
+	 * J̏Ԃ\iUIXbhȊOĂяoj
+	 * @param statusText ԁinull̏ꍇ͕\Ȃj
+	 */
+	public void setStatusText(String statusText) {
+		this.statusText = statusText;
+		postInvalidate();
 	}
 
 	/**
-	 * KChC̕`s
+	 * KChC̕\؂ւ
+	 * @param guideVisible	true	: \
+	 * 						false	: \Ȃ
+	 */
+	public void setGuideVisible(boolean guideVisible) {
+		this.guideVisible = guideVisible;
+		postInvalidate();
+	}
+
+	/**
+	 * o͈͂\iUIXbhȊOĂяoj
+	 * 
+	 * @param left [iView̍Wj
+	 * @param top [
+	 * @param right E[
+	 * @param bottom [
+	 */
+	public void setMotionRect(float left, float top, float right, float bottom) {
+		synchronized (this.motionRect) {
+			this.motionRect.set(left, top, right, bottom);
+		}
+		postInvalidate();
+	}
+
+	/**
+	 * o͈͂iUIXbhȊOĂяoj
+	 */
+	public void clearMotionRect() {
+		synchronized (this.motionRect) {
+			this.motionRect.setEmpty();
+		}
+		postInvalidate();
+	}
+
+	/**
+	 * KChCAó͈AJ̏Ԃ̕`s
 	 */
 	@Override
 	protected void onDraw(Canvas canvas) {
-		Paint paint = new Paint();
-		paint.setColor(Color.RED);
+		String statusText = this.statusText;
+		if (statusText != null) {
+			canvas.drawText(statusText, 4, 20, this.statusPaint);
+		}
+
+		synchronized (this.motionRect) {
+			if (!this.motionRect.isEmpty()) {
+				canvas.drawRect(this.motionRect, this.motionPaint);
+			}
+		}
+
+		if (!this.guideVisible) {
+			return;
+		}
 
 		float endX = canvas.getWidth();
 		float centerX = endX / 2.0f;
@@ -0,0 +1,302 @@
+package sample.camera.analysis;
+
+import android.graphics.Bitmap;
+
+/**
+ * J̘Io̓v߂NX<br>
+ * 摜iqɊԈf̋PxAqXgOAρAU߂B<br>
+ * ςƕU͈ړςێAÂAтĂA摜XVȂȀԂ𔻒肷B<br>
+ * v̓v~eBu^̔zɕێAt[̃IuWFNg͍sȂB<br>
+ * process1̃XbhĂяoƁi擾ñ\bh͂ǂ̃XbhłĂяojB
+ * 
+ * @author k-daigo
+ */
+public class FrameStatistics {
+
+	/** ԁFÂ */
+	public static final int STATUS_DARK = 0x01;
+
+	/** ԁFтĂ */
+	public static final int STATUS_WASHED_OUT = 0x02;
+
+	/** ԁF摜XVȂ */
+	public static final int STATUS_FROZEN = 0x04;
+
+	/** qXgO̊K */
+	public static final int HISTOGRAM_SIZE = 256;
+
+	/** iq̏̕l */
+	public static final int DEFAULT_GRID_WIDTH = 64;
+
+	/** iq̍̏l */
+	public static final int DEFAULT_GRID_HEIGHT = 48;
+
+	// ړς̍XV
+	private static final float SMOOTHING = 0.1f;
+
+	// ÂƔ肷镽ϋPx
+	private static final float DARK_MEAN = 30;
+
+	// тƔ肷镽ϋPxAW΍
+	private static final float WASHED_OUT_MEAN = 200;
+	private static final float WASHED_OUT_DEVIATION = 25;
+
+	// тƔ肷AOafiPx250ȏj̊
+	private static final float CLIPPED_RATIO = 0.5f;
+
+	// 摜XVȂƔ肷܂ł̊ԁi~bj
+	private static final long FROZEN_MILLIS = 5000;
+
+	/**
+	 * ԕωListeneri摜XbhĂ΂j
+	 */
+	public interface Listener {
+		/**
+		 * Ԃς
+		 * 
+		 * @param statistics v
+		 * @param status VԁiSTATUS_*̑gݍ킹Bȏꍇ0j
+		 */
+		void onStatusChanged(FrameStatistics statistics, int status);
+	}
+
+	private final int gridWidth;
+	private final int gridHeight;
+
+	// ̋PxƃqXgOiXbĥ݂gpj
+	private byte[] samples;
+	private byte[] previousSamples;
+	private final int[] workHistogram = new int[HISTOGRAM_SIZE];
+	private int[] row = new int[0];
+	private int sourceWidth = -1;
+	private int sourceHeight = -1;
+	private long unchangedSince = -1;
+
+	// J铝vithisŔrj
+	private final int[] histogram = new int[HISTOGRAM_SIZE];
+	private int sampleCount = 0;
+	private float mean = 0;
+	private float variance = 0;
+	private float averageMean = -1;
+	private float averageVariance = 0;
+	private long frozenMillis = 0;
+	private int frameCount = 0;
+	private int status = 0;
+
+	private volatile Listener listener = null;
+
+	/**
+	 * RXgN^iiq̑傫͏lj
+	 */
+	public FrameStatistics() {
+		this(DEFAULT_GRID_WIDTH, DEFAULT_GRID_HEIGHT);
+	}
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param gridWidth ̕W{
+	 * @param gridHeight c̕W{
+	 */
+	public FrameStatistics(int gridWidth, int gridHeight) {
+		if (gridWidth < 1 || gridHeight < 1) {
+			throw new IllegalArgumentException("gridWidth: " + gridWidth + " gridHeight: " + gridHeight);
+		}
+		this.gridWidth = gridWidth;
+		this.gridHeight = gridHeight;
+		this.samples = new byte[gridWidth * gridHeight];
+		this.previousSamples = new byte[gridWidth * gridHeight];
+	}
+
+	/**
+	 * Listenerݒ肷
+	 * @param listener Listenerinull̏ꍇ͒ʒmȂj
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * 摜
+	 * 
+	 * @param bitmap 摜
+	 * @param time 摜̓
+	 */
+	public void process(Bitmap bitmap, long time) {
+		int width = bitmap.getWidth();
+		int height = bitmap.getHeight();
+		if (width < this.gridWidth || height < this.gridHeight) {
+			return;
+		}
+		boolean resized = width != this.sourceWidth || height != this.sourceHeight;
+		if (resized) {
+			this.sourceWidth = width;
+			this.sourceHeight = height;
+			this.unchangedSince = -1;
+		}
+		if (this.row.length < width) {
+			this.row = new int[width];
+		}
+
+		// Ԉf̋PxƃqXgO߂
+		int[] histogram = this.workHistogram;
+		for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+			histogram[i] = 0;
+		}
+		byte[] samples = this.samples;
+		byte[] previous = this.previousSamples;
+		long sum = 0;
+		long squareSum = 0;
+		boolean changed = resized;
+		for (int gy = 0, i = 0; gy < this.gridHeight; gy++) {
+			int y = (2 * gy + 1) * height / (2 * this.gridHeight);
+			bitmap.getPixels(this.row, 0, width, 0, y, width, 1);
+
+			for (int gx = 0; gx < this.gridWidth; gx++, i++) {
+				int pixel = this.row[(2 * gx + 1) * width / (2 * this.gridWidth)];
+				int luma = (((pixel >> 16) & 0xff) * 77 + ((pixel >> 8) & 0xff) * 150 + (pixel & 0xff) * 29) >> 8;
+				samples[i] = (byte) luma;
+				if (samples[i] != previous[i]) {
+					changed = true;
+				}
+				histogram[luma]++;
+				sum += luma;
+				squareSum += luma * luma;
+			}
+		}
+		this.samples = previous;
+		this.previousSamples = samples;
+
+		// S摜Ă
+		if (changed || this.unchangedSince < 0) {
+			this.unchangedSince = time;
+		}
+
+		int count = this.gridWidth * this.gridHeight;
+		int clipped = 0;
+		for (int i = 250; i < HISTOGRAM_SIZE; i++) {
+			clipped += histogram[i];
+		}
+		int newStatus = this.publish(histogram, count, sum, squareSum, clipped, time - this.unchangedSince);
+
+		Listener listener = this.listener;
+		if (newStatus >= 0 && listener != null) {
+			listener.onStatusChanged(this, newStatus);
+		}
+	}
+
+	/**
+	 * vXVďԂ𔻒肷
+	 * 
+	 * @return Ԃςꍇ͐VԁAςȂꍇ-1
+	 */
+	private synchronized int publish(int[] histogram, int count, long sum, long squareSum, int clipped, long frozenMillis) {
+		System.arraycopy(histogram, 0, this.histogram, 0, HISTOGRAM_SIZE);
+		this.sampleCount = count;
+		this.mean = (float) sum / count;
+		this.variance = (float) squareSum / count - this.mean * this.mean;
+		if (this.averageMean < 0) {
+			this.averageMean = this.mean;
+			this.averageVariance = this.variance;
+		} else {
+			this.averageMean += (this.mean - this.averageMean) * SMOOTHING;
+			this.averageVariance += (this.variance - this.averageVariance) * SMOOTHING;
+		}
+		this.frozenMillis = frozenMillis;
+		this.frameCount++;
+
+		int newStatus = 0;
+		if (this.averageMean < DARK_MEAN) {
+			newStatus |= STATUS_DARK;
+		}
+		if ((this.averageMean > WASHED_OUT_MEAN && Math.sqrt(this.averageVariance) < WASHED_OUT_DEVIATION)
+				|| clipped >= count * CLIPPED_RATIO) {
+			newStatus |= STATUS_WASHED_OUT;
+		}
+		if (frozenMillis >= FROZEN_MILLIS) {
+			newStatus |= STATUS_FROZEN;
+		}
+
+		if (newStatus == this.status) {
+			return -1;
+		}
+		this.status = newStatus;
+		return newStatus;
+	}
+
+	/**
+	 * Ōɏ摜̋Px̃qXgOԂ
+	 * 
+	 * @param out qXgO̊i[iHISTOGRAM_SIZEȏj
+	 * @return W{
+	 */
+	public synchronized int getHistogram(int[] out) {
+		System.arraycopy(this.histogram, 0, out, 0, HISTOGRAM_SIZE);
+		return this.sampleCount;
+	}
+
+	/**
+	 * Ōɏ摜̋Px̕ςԂ
+	 * @return ρi0255j
+	 */
+	public synchronized float getMean() {
+		return this.mean;
+	}
+
+	/**
+	 * Ōɏ摜̋Px̕UԂ
+	 * @return U
+	 */
+	public synchronized float getVariance() {
+		return this.variance;
+	}
+
+	/**
+	 * Px̕ς̈ړςԂ
+	 * @return ړρȉꍇ-1j
+	 */
+	public synchronized float getAverageMean() {
+		return this.averageMean;
+	}
+
+	/**
+	 * Px̕ÜړςԂ
+	 * @return ړ
+	 */
+	public synchronized float getAverageVariance() {
+		return this.averageVariance;
+	}
+
+	/**
+	 * S摜ĂԂԂ
+	 * @return ԁi~bj
+	 */
+	public synchronized long getFrozenMillis() {
+		return this.frozenMillis;
+	}
+
+	/**
+	 * 摜̐Ԃ
+	 * @return 摜̐
+	 */
+	public synchronized int getFrameCount() {
+		return this.frameCount;
+	}
+
+	/**
+	 * ԂԂ
+	 * @return STATUS_*̑gݍ킹iȏꍇ0j
+	 */
+	public synchronized int getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * v̊TvԂ
+	 * @return Tv
+	 */
+	public synchronized String getSummary() {
+		return "frames=" + this.frameCount + " mean=" + this.mean + " variance=" + this.variance + " averageMean="
+				+ this.averageMean + " frozen=" + this.frozenMillis + "ms status=" + this.status;
+	}
+}
@@ -0,0 +1,326 @@
+package sample.camera.analysis;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * 摜̓oNX<br>
+ * 摜Ȋiq̋PxɏkAړςŋ߂wiƂ̍臒l𒴂Z𓮂ƂB<br>
+ * k͊eZ̐sAf݂̂ǂݍōsAt[̃IuWFNg͍sȂB<br>
+ * CX^X𕡐̃Xbh珈ȂƁB
+ * 
+ * @author k-daigo
+ */
+public class MotionDetector {
+
+	/** iq̏̕l */
+	public static final int DEFAULT_GRID_WIDTH = 32;
+
+	/** iq̍̏l */
+	public static final int DEFAULT_GRID_HEIGHT = 24;
+
+	// 1ZɓǂݍލsA1sɓǂݍމf
+	private static final int ROWS_PER_CELL = 2;
+	private static final int COLUMNS_PER_CELL = 4;
+
+	// wi̍XVi1/2^njB̂Z͒xǏ]
+	private static final int LEARN_SHIFT = 4;
+	private static final int MOTION_LEARN_SHIFT = 6;
+
+	// ȂĂIʒm܂ł̃t[
+	private static final int QUIET_FRAMES = 5;
+
+	/**
+	 * oListeneri摜XbhĂ΂j
+	 */
+	public interface Listener {
+		/**
+		 * oiԂ͖t[Ă΂j
+		 * 
+		 * @param detector oMotionDetector
+		 * @param bounds ͈̂́i摜̍WB̃t[ŏ㏑邽߁Aێꍇ̓Rs[邱Ɓj
+		 * @param cells ̂Z̐
+		 * @param time 摜̓
+		 */
+		void onMotion(MotionDetector detector, Rect bounds, int cells, long time);
+
+		/**
+		 * Ȃ
+		 * 
+		 * @param detector oMotionDetector
+		 * @param time 摜̓
+		 */
+		void onMotionEnd(MotionDetector detector, long time);
+	}
+
+	private final int gridWidth;
+	private final int gridHeight;
+
+	// kPxi0255j
+	private final byte[] luma;
+
+	// wi̋Pxi256{̌Œ菬_j
+	private final int[] background;
+
+	// iq1s̋Px̍v
+	private final int[] sums;
+
+	// 摜1s̉fi傫Ȃꍇ̂ݍ蒼j
+	private int[] row = new int[0];
+
+	private final Rect bounds = new Rect();
+	private int sourceWidth = -1;
+	private int sourceHeight = -1;
+	private boolean initialized = false;
+	private boolean moving = false;
+	private int quietFrames = 0;
+	private volatile int motionCells = 0;
+
+	private volatile int threshold = 24;
+	private volatile int minCells = 2;
+	private volatile Listener listener = null;
+
+	/**
+	 * RXgN^iiq̑傫͏lj
+	 */
+	public MotionDetector() {
+		this(DEFAULT_GRID_WIDTH, DEFAULT_GRID_HEIGHT);
+	}
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param gridWidth iq̕
+	 * @param gridHeight iq̍
+	 */
+	public MotionDetector(int gridWidth, int gridHeight) {
+		if (gridWidth < 1 || gridHeight < 1) {
+			throw new IllegalArgumentException("gridWidth: " + gridWidth + " gridHeight: " + gridHeight);
+		}
+		this.gridWidth = gridWidth;
+		this.gridHeight = gridHeight;
+		this.luma = new byte[gridWidth * gridHeight];
+		this.background = new int[gridWidth * gridHeight];
+		this.sums = new int[gridWidth];
+	}
+
+	/**
+	 * Listenerݒ肷
+	 * @param listener Listenerinull̏ꍇ͒ʒmȂj
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Ƃ݂ȂPx̍ݒ肷
+	 * @param threshold Px̍i1255j
+	 */
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Ƃ݂ȂZ̉ݒ肷
+	 * @param minCells Z
+	 */
+	public void setMinCells(int minCells) {
+		this.minCells = minCells;
+	}
+
+	/**
+	 * wijẢ摜wK
+	 */
+	public void reset() {
+		this.initialized = false;
+	}
+
+	/**
+	 * 摜
+	 * 
+	 * @param bitmap 摜
+	 * @param time 摜̓
+	 * @return ̂Z̐
+	 */
+	public int process(Bitmap bitmap, long time) {
+		int width = bitmap.getWidth();
+		int height = bitmap.getHeight();
+		if (width < this.gridWidth || height < this.gridHeight) {
+			return 0;
+		}
+		if (width != this.sourceWidth || height != this.sourceHeight) {
+			this.sourceWidth = width;
+			this.sourceHeight = height;
+			this.initialized = false;
+		}
+		if (this.row.length < width) {
+			this.row = new int[width];
+		}
+
+		this.downsample(bitmap, width, height);
+		int cells = this.compare(width, height);
+		this.motionCells = cells;
+		this.notifyMotion(cells, time);
+		return cells;
+	}
+
+	/**
+	 * kPxԂȉŏ㏑j
+	 * @return Pxiiq̕~j
+	 */
+	public byte[] getLuma() {
+		return this.luma;
+	}
+
+	/**
+	 * iq̕Ԃ
+	 * @return 
+	 */
+	public int getGridWidth() {
+		return this.gridWidth;
+	}
+
+	/**
+	 * iq̍Ԃ
+	 * @return 
+	 */
+	public int getGridHeight() {
+		return this.gridHeight;
+	}
+
+	/**
+	 * Ōɏ摜̕Ԃ
+	 * @return ȉꍇ-1j
+	 */
+	public int getSourceWidth() {
+		return this.sourceWidth;
+	}
+
+	/**
+	 * Ōɏ摜̍Ԃ
+	 * @return ȉꍇ-1j
+	 */
+	public int getSourceHeight() {
+		return this.sourceHeight;
+	}
+
+	/**
+	 * Ōɏ摜́ÂZ̐Ԃ
+	 * @return Z
+	 */
+	public int getMotionCells() {
+		return this.motionCells;
+	}
+
+	/**
+	 * ̂Z̊Ԃ
+	 * @return i0.01.0j
+	 */
+	public float getMotionScore() {
+		return (float) this.motionCells / (this.gridWidth * this.gridHeight);
+	}
+
+	/**
+	 * 摜iq̋Pxɏk
+	 */
+	private void downsample(Bitmap bitmap, int width, int height) {
+		int[] row = this.row;
+		int[] sums = this.sums;
+		int samples = ROWS_PER_CELL * COLUMNS_PER_CELL;
+
+		for (int gy = 0; gy < this.gridHeight; gy++) {
+			int top = gy * height / this.gridHeight;
+			int cellHeight = (gy + 1) * height / this.gridHeight - top;
+			for (int gx = 0; gx < this.gridWidth; gx++) {
+				sums[gx] = 0;
+			}
+
+			for (int r = 0; r < ROWS_PER_CELL; r++) {
+				int y = top + (2 * r + 1) * cellHeight / (2 * ROWS_PER_CELL);
+				bitmap.getPixels(row, 0, width, 0, y, width, 1);
+
+				for (int gx = 0; gx < this.gridWidth; gx++) {
+					int left = gx * width / this.gridWidth;
+					int cellWidth = (gx + 1) * width / this.gridWidth - left;
+					int sum = 0;
+					for (int c = 0; c < COLUMNS_PER_CELL; c++) {
+						int pixel = row[left + (2 * c + 1) * cellWidth / (2 * COLUMNS_PER_CELL)];
+						sum += (((pixel >> 16) & 0xff) * 77 + ((pixel >> 8) & 0xff) * 150 + (pixel & 0xff) * 29) >> 8;
+					}
+					sums[gx] += sum;
+				}
+			}
+
+			int offset = gy * this.gridWidth;
+			for (int gx = 0; gx < this.gridWidth; gx++) {
+				this.luma[offset + gx] = (byte) (sums[gx] / samples);
+			}
+		}
+	}
+
+	/**
+	 * wiƔrAwiXV
+	 * 
+	 * @return ̂Z̐
+	 */
+	private int compare(int width, int height) {
+		byte[] luma = this.luma;
+		int[] background = this.background;
+
+		if (!this.initialized) {
+			for (int i = 0; i < luma.length; i++) {
+				background[i] = (luma[i] & 0xff) << 8;
+			}
+			this.initialized = true;
+			return 0;
+		}
+
+		int threshold = this.threshold;
+		int cells = 0;
+		int minX = this.gridWidth;
+		int minY = this.gridHeight;
+		int maxX = -1;
+		int maxY = -1;
+		for (int gy = 0, i = 0; gy < this.gridHeight; gy++) {
+			for (int gx = 0; gx < this.gridWidth; gx++, i++) {
+				int current = (luma[i] & 0xff) << 8;
+				int diff = current - background[i];
+				if (Math.abs(diff) > threshold << 8) {
+					background[i] += diff >> MOTION_LEARN_SHIFT;
+					cells++;
+					minX = Math.min(minX, gx);
+					minY = Math.min(minY, gy);
+					maxX = Math.max(maxX, gx);
+					maxY = Math.max(maxY, gy);
+				} else {
+					background[i] += diff >> LEARN_SHIFT;
+				}
+			}
+		}
+
+		if (cells > 0) {
+			this.bounds.set(minX * width / this.gridWidth, minY * height / this.gridHeight,
+					(maxX + 1) * width / this.gridWidth, (maxY + 1) * height / this.gridHeight);
+		}
+		return cells;
+	}
+
+	/**
+	 * ̊JnAIʒm
+	 */
+	private void notifyMotion(int cells, long time) {
+		Listener listener = this.listener;
+		if (cells >= this.minCells) {
+			this.moving = true;
+			this.quietFrames = 0;
+			if (listener != null) {
+				listener.onMotion(this, this.bounds, cells, time);
+			}
+		} else if (this.moving && ++this.quietFrames >= QUIET_FRAMES) {
+			this.moving = false;
+			if (listener != null) {
+				listener.onMotionEnd(this, time);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package sample.camera.analysis;
+
+import sample.camera.image.FrameDecoder;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+/**
+ * 摜̒monbVi64bitdHashj߂郆[eBeB<br>
+ * 摜9~8̋PxɏkAɗׂ荇f̑召1bitׂB<br>
+ * قړ摜̓n~ȌnbVlɂȂB<br>
+ * Ŝψȉ摜0ɂȂ邽߁A0́unbVlvƓƂȂB
+ * 
+ * @author k-daigo
+ */
+public class PerceptualHash {
+
+	// k̑傫iɗׂ荇fr邽߁A1j
+	private static final int HASH_WIDTH = 9;
+	private static final int HASH_HEIGHT = 8;
+
+	// JPEGkfR[hۂ̖ڈ̑傫
+	private static final int DECODE_SIZE = 64;
+
+	/**
+	 * RXgN^͉B
+	 */
+	protected PerceptualHash() {
+	}
+
+	/**
+	 * 摜̃nbVl߂
+	 * 
+	 * @param bitmap 摜
+	 * @return nbVli摜ꍇ0j
+	 */
+	public static long compute(Bitmap bitmap) {
+		int width = bitmap.getWidth();
+		int height = bitmap.getHeight();
+		if (width < HASH_WIDTH || height < HASH_HEIGHT) {
+			return 0;
+		}
+
+		// eZ̋Px̍viZ̉fSĉZj
+		int[] sums = new int[HASH_WIDTH * HASH_HEIGHT];
+		int[] counts = new int[HASH_WIDTH * HASH_HEIGHT];
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			bitmap.getPixels(row, 0, width, 0, y, width, 1);
+			int cellRow = y * HASH_HEIGHT / height * HASH_WIDTH;
+			for (int x = 0; x < width; x++) {
+				int pixel = row[x];
+				int cell = cellRow + x * HASH_WIDTH / width;
+				sums[cell] += ((pixel >> 16) & 0xff) * 77 + ((pixel >> 8) & 0xff) * 150 + (pixel & 0xff) * 29;
+				counts[cell]++;
+			}
+		}
+
+		long hash = 0;
+		for (int cy = 0; cy < HASH_HEIGHT; cy++) {
+			for (int cx = 0; cx < HASH_WIDTH - 1; cx++) {
+				int cell = cy * HASH_WIDTH + cx;
+				// ς̔risums[a]/counts[a] < sums[b]/counts[b]j𐮐ōs
+				boolean brighter = (long) sums[cell] * counts[cell + 1] < (long) sums[cell + 1] * counts[cell];
+				hash = (hash << 1) | (brighter ? 1 : 0);
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * JPEGf[^̃nbVl߂ikăfR[hj
+	 * 
+	 * @param data JPEGf[^
+	 * @param offset Jnʒu
+	 * @param length 
+	 * @return nbVlifR[hłȂꍇ0j
+	 */
+	public static long compute(byte[] data, int offset, int length) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(data, offset, length, options);
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return 0;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = FrameDecoder.calculateSampleSize(options.outWidth, options.outHeight, DECODE_SIZE, DECODE_SIZE);
+		Bitmap bitmap = BitmapFactory.decodeByteArray(data, offset, length, options);
+		if (bitmap == null) {
+			return 0;
+		}
+		try {
+			return compute(bitmap);
+		} finally {
+			bitmap.recycle();
+		}
+	}
+
+	/**
+	 * nbVl̃n~OԂ
+	 * 
+	 * @param hash1 nbVl
+	 * @param hash2 nbVl
+	 * @return قȂbit̐i064j
+	 */
+	public static int distance(long hash1, long hash2) {
+		return Long.bitCount(hash1 ^ hash2);
+	}
+}
@@ -0,0 +1,96 @@
+package sample.camera.capture;
+
+import android.graphics.Bitmap;
+
+/**
+ * Lv`摜ێNX<br>
+ * JPEGf[^AfR[hς݂̉摜̈܂͗ێ
+ * 
+ * @author k-daigo
+ */
+public class Capture {
+	private final byte[] jpegData;
+	private final Bitmap bitmap;
+	private final String cameraId;
+	private final long time;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param jpegData JPEGf[^iꍇnullj
+	 * @param bitmap fR[hς݂̉摜iꍇnullj
+	 * @param cameraId JID
+	 * @param time Lv`
+	 */
+	public Capture(byte[] jpegData, Bitmap bitmap, String cameraId, long time) {
+		if (jpegData == null && bitmap == null) {
+			throw new IllegalArgumentException("jpegData and bitmap are null");
+		}
+
+		this.jpegData = jpegData;
+		this.bitmap = bitmap;
+		this.cameraId = cameraId;
+		this.time = time;
+	}
+
+	/**
+	 * JPEGf[^ԂiRs[ȂߕύXȂƁj
+	 * @return JPEGf[^iꍇnullj
+	 */
+	public byte[] getJpegData() {
+		return this.jpegData;
+	}
+
+	/**
+	 * fR[hς݂̉摜Ԃ
+	 * @return 摜iꍇnullj
+	 */
+	public Bitmap getBitmap() {
+		return this.bitmap;
+	}
+
+	/**
+	 * JIDԂ
+	 * @return JID
+	 */
+	public String getCameraId() {
+		return this.cameraId;
+	}
+
+	/**
+	 * Lv`Ԃ
+	 * @return Lv`
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * ێĂf[^̃TCYԂ
+	 * @return TCYibytej
+	 */
+	public long getSizeInBytes() {
+		long size = 0;
+		if (this.jpegData != null) {
+			size += this.jpegData.length;
+		}
+		if (this.bitmap != null) {
+			size += (long) this.bitmap.getRowBytes() * this.bitmap.getHeight();
+		}
+		return size;
+	}
+
+	/**
+	 * ۑv𐶐<br>
+	 * JPEGf[^ꍇJPEGf[^Aꍇ͉摜ۑ
+	 * 
+	 * @param fileName t@Cigqj
+	 * @return ۑv
+	 */
+	public SaveRequest toSaveRequest(String fileName) {
+		if (this.jpegData != null) {
+			return new SaveRequest(fileName, this.jpegData, this.cameraId, this.time);
+		}
+		return new SaveRequest(fileName, this.bitmap, this.cameraId, this.time);
+	}
+}
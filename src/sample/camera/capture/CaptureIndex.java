@@ -0,0 +1,632 @@
+package sample.camera.capture;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import sample.camera.utils.CaptureNameUtil;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Lv`̍t@CǗNX<br>
+ * iVOgj<br>
+ * ͌Œ蒷R[h̒ǋLpt@CŁA}bvē񕪒TB<br>
+ * eR[hɂCRCAݓrňُĨR[h͓ǂݍݎɐ؂̂ĂB
+ * r̃R[hCRCvȂꍇ͐؂̂ĂA폜ς݂ƂĎcB<br>
+ * tÔ݌ォXV邽߁ACRC̑ΏۊOƂB<br>
+ * monbV̋߂Lv`́Ǎɍ쐬DuplicateIndexŒTB<br>
+ * я̃L[Lv`MAX_DISORDER𒴂ČÂR[h́A̕ʂ̈ꗗŒTB
+ * 
+ * <pre>
+ * wb_i16bytej: }WbN'CIDX'Ao[W(1)A\
+ * R[hi96bytej:
+ *   0 long   я̃L[iLv`BÕR[h菬ꍇ͒O̒lj
+ *   8 long   Lv`
+ *  16 int    JID̃L[
+ *  20 int    t@CTCY
+ *  24 long   ẽnbVliFNV-1a 64bitj
+ *  32 long   摜̒monbVliꍇ0j
+ *  40 int    tO
+ *  44 byte[] t@CiASCIIANUL߁j
+ *  92 int    039byteA4491byteCRC32
+ * </pre>
+ * 
+ * @author k-daigo
+ */
+public class CaptureIndex {
+	private static final String LOG_TAG = "CaptureIndex:";
+
+	/** t@C */
+	public static final String FILE_NAME = "captures.idx";
+
+	/** tOFt@C폜ς */
+	public static final int FLAG_DELETED = 0x01;
+
+	private static final int MAGIC = 0x43494458;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int RECORD_SIZE = 96;
+	private static final int FLAGS_OFFSET = 40;
+	private static final int NAME_OFFSET = 44;
+	private static final int NAME_LENGTH = 48;
+	private static final int CRC_OFFSET = 92;
+
+	// я̃L[̒xƂČ͈͂Ɋ܂߂i~bjBR[h͕ʂ̈ꗗŒT
+	private static final long MAX_DISORDER = 1000;
+
+	// ẽnbVl̏l
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	// instance
+	private static CaptureIndex captureIndex;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+	private final ByteBuffer flagsBuffer = ByteBuffer.allocate(4);
+	private final CRC32 crc = new CRC32();
+	private int count;
+	private long lastSortKey = Long.MIN_VALUE;
+
+	// xĒǋLꂽR[h̃Lv`ƈʒuiLv`j
+	private long[] lateTimes = new long[16];
+	private int[] latePositions = new int[16];
+	private int lateCount;
+
+	// monbV̍ǐɍ쐬j
+	private DuplicateIndex duplicates = null;
+
+	// p̃}bviςꍇɍ蒼j
+	private MappedByteBuffer mapped;
+	private int mappedCount = -1;
+
+	/**
+	 * RXgN^͉B
+	 * @param indexFile t@C
+	 * @throws IOException
+	 */
+	private CaptureIndex(File indexFile) throws IOException {
+		this.file = new RandomAccessFile(indexFile, "rw");
+		this.channel = this.file.getChannel();
+		this.open();
+	}
+
+	/**
+	 * NX̃CX^XԂ
+	 * 
+	 * @param context Context
+	 * @return CaptureIndex̃CX^X
+	 * @throws IOException
+	 */
+	public static synchronized CaptureIndex getInstance(Context context) throws IOException {
+		if (captureIndex == null) {
+			captureIndex = new CaptureIndex(context.getFileStreamPath(FILE_NAME));
+		}
+		return captureIndex;
+	}
+
+	/**
+	 * w肵t@C̍JiContextgpȂؗpBL̃CX^XƂ͕ʂɊJj
+	 * 
+	 * @param indexFile t@C
+	 * @return CaptureIndex̃CX^Xigpclose邱Ɓj
+	 * @throws IOException
+	 */
+	public static CaptureIndex open(File indexFile) throws IOException {
+		return new CaptureIndex(indexFile);
+	}
+
+	/**
+	 * JID̃L[Ԃ
+	 * 
+	 * @param cameraId JID
+	 * @return L[
+	 */
+	public static int cameraKey(String cameraId) {
+		return cameraId == null ? 0 : cameraId.hashCode();
+	}
+
+	/**
+	 * ẽnbVliFNV-1a 64bitjԂ
+	 * 
+	 * @param data f[^
+	 * @param offset Jnʒu
+	 * @param length 
+	 * @return nbVl
+	 */
+	public static long contentHash(byte[] data, int offset, int length) {
+		return contentHash(FNV_OFFSET, data, offset, length);
+	}
+
+	/**
+	 * r܂ł̓ẽnbVlɑ
+	 */
+	private static long contentHash(long hash, byte[] data, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			hash ^= data[i] & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * R[hǋLisyncĂԂ܂ŉi͕ۏ؂Ȃj
+	 * 
+	 * @param time Lv`
+	 * @param cameraId JID
+	 * @param size t@CTCY
+	 * @param contentHash ẽnbVl
+	 * @param perceptualHash 摜̒monbVliꍇ0j
+	 * @param fileName t@C
+	 * @return ǋLR[ḧʒu
+	 * @throws IOException
+	 */
+	public synchronized int append(long time, String cameraId, int size, long contentHash, long perceptualHash, String fileName) throws IOException {
+		if (fileName.length() > NAME_LENGTH) {
+			throw new IllegalArgumentException("fileName too long: " + fileName);
+		}
+
+		long sortKey = Math.max(time, this.lastSortKey);
+		ByteBuffer buffer = this.recordBuffer;
+		buffer.clear();
+		buffer.putLong(sortKey);
+		buffer.putLong(time);
+		buffer.putInt(cameraKey(cameraId));
+		buffer.putInt(size);
+		buffer.putLong(contentHash);
+		buffer.putLong(perceptualHash);
+		buffer.putInt(0);
+		for (int i = 0; i < NAME_LENGTH; i++) {
+			buffer.put(i < fileName.length() ? (byte) fileName.charAt(i) : 0);
+		}
+		buffer.putInt(this.checksum(buffer.array()));
+		buffer.flip();
+
+		this.channel.position(HEADER_SIZE + (long) this.count * RECORD_SIZE);
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer);
+		}
+
+		this.lastSortKey = sortKey;
+		if (sortKey - time > MAX_DISORDER) {
+			this.addLate(time, this.count);
+		}
+		if (this.duplicates != null && perceptualHash != 0) {
+			this.duplicates.add(perceptualHash, cameraKey(cameraId), this.count, sortKey, time);
+		}
+		return this.count++;
+	}
+
+	/**
+	 * R[h̃tOXVisyncĂԂ܂ŉi͕ۏ؂Ȃj
+	 * 
+	 * @param position ʒu
+	 * @param flags tO
+	 * @throws IOException
+	 */
+	public synchronized void setFlags(int position, int flags) throws IOException {
+		if (position < 0 || position >= this.count) {
+			throw new IndexOutOfBoundsException("position: " + position);
+		}
+
+		ByteBuffer buffer = this.flagsBuffer;
+		buffer.clear();
+		buffer.putInt(flags);
+		buffer.flip();
+		long offset = HEADER_SIZE + (long) position * RECORD_SIZE + FLAGS_OFFSET;
+		while (buffer.hasRemaining()) {
+			offset += this.channel.write(buffer, offset);
+		}
+	}
+
+	/**
+	 * ǋLR[hi
+	 * 
+	 * @throws IOException
+	 */
+	public synchronized void sync() throws IOException {
+		this.channel.force(false);
+	}
+
+	/**
+	 * t@CiopenŊĴ̂݁BL̃CX^X͕ȂƁj
+	 * 
+	 * @throws IOException
+	 */
+	public synchronized void close() throws IOException {
+		this.mapped = null;
+		this.mappedCount = -1;
+		this.file.close();
+	}
+
+	/**
+	 * R[ȟԂ
+	 * @return 
+	 */
+	public synchronized int size() {
+		return this.count;
+	}
+
+	/**
+	 * R[hԂ
+	 * 
+	 * @param position ʒu
+	 * @return R[h
+	 * @throws IOException
+	 */
+	public synchronized CaptureRecord get(int position) throws IOException {
+		if (position < 0 || position >= this.count) {
+			throw new IndexOutOfBoundsException("position: " + position);
+		}
+		return this.readRecord(this.map(), position);
+	}
+
+	/**
+	 * wԂ̃Lv`i폜ς݂̂̂͏j
+	 * 
+	 * @param cameraId JIDinull̏ꍇ͑SẴJj
+	 * @param fromTime Jni܂ށj
+	 * @param toTime Ii܂ށj
+	 * @return YR[hȉj
+	 * @throws IOException
+	 */
+	public synchronized List<CaptureRecord> query(String cameraId, long fromTime, long toTime) throws IOException {
+		List<CaptureRecord> result = new ArrayList<CaptureRecord>();
+		MappedByteBuffer buffer = this.map();
+		int cameraKey = cameraKey(cameraId);
+
+		// я̃L[̓Lv`ȏ̂߁AJn񕪒Tł
+		// L[Lv`MAX_DISORDER𒴂đ傫R[h́AxꂽR[ḧꗗT
+		int position = this.lowerBound(buffer, fromTime);
+		long scanEnd = toTime > Long.MAX_VALUE - MAX_DISORDER ? Long.MAX_VALUE : toTime + MAX_DISORDER;
+		for (; position < this.count; position++) {
+			int base = HEADER_SIZE + position * RECORD_SIZE;
+			long sortKey = buffer.getLong(base);
+			if (sortKey > scanEnd) {
+				break;
+			}
+			if (sortKey - buffer.getLong(base + 8) <= MAX_DISORDER && this.matches(buffer, base, cameraId, cameraKey, fromTime, toTime)) {
+				result.add(this.readRecord(buffer, position));
+			}
+		}
+
+		// xꂽR[h͈ʒuɕגČʂɍ
+		int[] late = null;
+		int lateHits = 0;
+		for (int i = this.lowerLate(fromTime); i < this.lateCount && this.lateTimes[i] <= toTime; i++) {
+			int latePosition = this.latePositions[i];
+			if (this.matches(buffer, HEADER_SIZE + latePosition * RECORD_SIZE, cameraId, cameraKey, fromTime, toTime)) {
+				if (late == null) {
+					late = new int[this.lateCount - i];
+				}
+				late[lateHits++] = latePosition;
+			}
+		}
+		if (lateHits == 0) {
+			return result;
+		}
+
+		Arrays.sort(late, 0, lateHits);
+		List<CaptureRecord> merged = new ArrayList<CaptureRecord>(result.size() + lateHits);
+		int next = 0;
+		for (int i = 0; i < lateHits; i++) {
+			while (next < result.size() && result.get(next).getPosition() < late[i]) {
+				merged.add(result.get(next++));
+			}
+			merged.add(this.readRecord(buffer, late[i]));
+		}
+		merged.addAll(result.subList(next, result.size()));
+		return merged;
+	}
+
+	/**
+	 * ۑς݂ōɖLv`ǋL<br>
+	 * ۑfsyncւ̒ǋL܂ł̊ԂɈُIt@CAeʂƕۑԂ̊Ǘ̑Ώۂɖ߂B<br>
+	 * Lv`̓t@C̍XVƂAJIDƒmonbVl͖ƂB<br>
+	 * ۑ̃t@CĒǋLȂ悤Aۑn߂OɌĂԂƁB
+	 * 
+	 * @param directory Lv`̕ۑ
+	 * @return ǋL
+	 * @throws IOException
+	 */
+	public synchronized int reconcile(File directory) throws IOException {
+		String[] names = directory.list();
+		if (names == null) {
+			return 0;
+		}
+
+		Set<String> indexed = new HashSet<String>();
+		MappedByteBuffer buffer = this.map();
+		for (int position = 0; position < this.count; position++) {
+			if ((buffer.getInt(HEADER_SIZE + position * RECORD_SIZE + FLAGS_OFFSET) & FLAG_DELETED) == 0) {
+				indexed.add(this.readRecord(buffer, position).getFileName());
+			}
+		}
+
+		int appended = 0;
+		byte[] data = new byte[8192];
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i];
+			if (indexed.contains(name) || CaptureNameUtil.parseId(name) < 0 || !(name.endsWith(".jpg") || name.endsWith(".png"))) {
+				continue;
+			}
+
+			File file = new File(directory, name);
+			long hash = FNV_OFFSET;
+			int size = 0;
+			FileInputStream in = new FileInputStream(file);
+			try {
+				int length;
+				while ((length = in.read(data)) > 0) {
+					hash = contentHash(hash, data, 0, length);
+					size += length;
+				}
+			} finally {
+				in.close();
+			}
+			this.append(file.lastModified(), null, size, hash, 0, name);
+			appended++;
+		}
+		if (appended > 0) {
+			Log.w(LOG_TAG, "unindexed captures appended: " + appended);
+			this.sync();
+		}
+		return appended;
+	}
+
+	/**
+	 * R[hɍԂ
+	 */
+	private boolean matches(MappedByteBuffer buffer, int base, String cameraId, int cameraKey, long fromTime, long toTime) {
+		long time = buffer.getLong(base + 8);
+		if (time < fromTime || time > toTime) {
+			return false;
+		}
+		if (cameraId != null && buffer.getInt(base + 16) != cameraKey) {
+			return false;
+		}
+		return (buffer.getInt(base + FLAGS_OFFSET) & FLAG_DELETED) == 0;
+	}
+
+	/**
+	 * xꂽR[ḧꗗɁALv`ۂĉ
+	 */
+	private void addLate(long time, int position) {
+		if (this.lateCount == this.lateTimes.length) {
+			this.lateTimes = Arrays.copyOf(this.lateTimes, this.lateCount * 2);
+			this.latePositions = Arrays.copyOf(this.latePositions, this.lateCount * 2);
+		}
+
+		// ꍇ͈ʒuƂ
+		int index = this.lowerLate(time + 1);
+		System.arraycopy(this.lateTimes, index, this.lateTimes, index + 1, this.lateCount - index);
+		System.arraycopy(this.latePositions, index, this.latePositions, index + 1, this.lateCount - index);
+		this.lateTimes[index] = time;
+		this.latePositions[index] = position;
+		this.lateCount++;
+	}
+
+	/**
+	 * xꂽR[ḧꗗŁALv`wlȏƂȂŏ̓YԂ
+	 */
+	private int lowerLate(long time) {
+		int low = 0;
+		int high = this.lateCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.lateTimes[middle] < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * JŁALv`wȍ~́AmonbV߂Lv`Ti폜ς݂̂̂͏j
+	 * 
+	 * @param cameraId JID
+	 * @param perceptualHash monbV
+	 * @param maxDistance n~Ȍi03j
+	 * @param fromTime Lv`̉iÕLv`Ƃ͔rȂj
+	 * @return R[ḧʒuiꍇAnbVl0̏ꍇ-1j
+	 * @throws IOException
+	 */
+	public synchronized int findSimilar(String cameraId, long perceptualHash, int maxDistance, long fromTime) throws IOException {
+		if (maxDistance < 0 || maxDistance > DuplicateIndex.MAX_DISTANCE) {
+			throw new IllegalArgumentException("maxDistance: " + maxDistance);
+		}
+		if (perceptualHash == 0) {
+			return -1;
+		}
+
+		if (this.duplicates == null) {
+			DuplicateIndex duplicates = new DuplicateIndex(this.count);
+			MappedByteBuffer buffer = this.map();
+			for (int position = 0; position < this.count; position++) {
+				int base = HEADER_SIZE + position * RECORD_SIZE;
+				long hash = buffer.getLong(base + 32);
+				if (hash != 0 && (buffer.getInt(base + FLAGS_OFFSET) & FLAG_DELETED) == 0) {
+					duplicates.add(hash, buffer.getInt(base + 16), position, buffer.getLong(base), buffer.getLong(base + 8));
+				}
+			}
+			this.duplicates = duplicates;
+		}
+		return this.duplicates.find(perceptualHash, cameraKey(cameraId), maxDistance, fromTime, this);
+	}
+
+	/**
+	 * 폜ς݂Ԃ
+	 * 
+	 * @param position ʒu
+	 * @return	true	: 폜ς
+	 * 			false	: 폜
+	 * @throws IOException
+	 */
+	synchronized boolean isDeleted(int position) throws IOException {
+		return (this.map().getInt(HEADER_SIZE + position * RECORD_SIZE + FLAGS_OFFSET) & FLAG_DELETED) != 0;
+	}
+
+	/**
+	 * я̃L[wlȏƂȂŏ̈ʒuԂ
+	 * 
+	 * @param buffer ̃}bv
+	 * @param key L[
+	 * @return ʒuiYȂ̏ꍇ͌j
+	 */
+	int lowerBound(MappedByteBuffer buffer, long key) {
+		int low = 0;
+		int high = this.count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (buffer.getLong(HEADER_SIZE + mid * RECORD_SIZE) < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * ̃}bvԂ
+	 */
+	MappedByteBuffer map() throws IOException {
+		if (this.mappedCount != this.count) {
+			this.mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) this.count * RECORD_SIZE);
+			this.mappedCount = this.count;
+		}
+		return this.mapped;
+	}
+
+	/**
+	 * }bv烌R[hǂݍ
+	 */
+	private CaptureRecord readRecord(MappedByteBuffer buffer, int position) {
+		int base = HEADER_SIZE + position * RECORD_SIZE;
+		StringBuilder name = new StringBuilder(NAME_LENGTH);
+		for (int i = 0; i < NAME_LENGTH; i++) {
+			byte c = buffer.get(base + NAME_OFFSET + i);
+			if (c == 0) {
+				break;
+			}
+			name.append((char) c);
+		}
+
+		return new CaptureRecord(position, buffer.getLong(base + 8), buffer.getInt(base + 16), buffer.getInt(base + 20),
+				buffer.getLong(base + 24), buffer.getLong(base + 32), buffer.getInt(base + FLAGS_OFFSET), name.toString());
+	}
+
+	/**
+	 * R[hCRCvZitO͑ΏۊOj
+	 */
+	private int checksum(byte[] record) {
+		this.crc.reset();
+		this.crc.update(record, 0, FLAGS_OFFSET);
+		this.crc.update(record, NAME_OFFSET, CRC_OFFSET - NAME_OFFSET);
+		return (int) this.crc.getValue();
+	}
+
+	/**
+	 * recordBuffer̃R[hCRCv邩Ԃ
+	 */
+	private boolean verify() {
+		return this.checksum(this.recordBuffer.array()) == this.recordBuffer.getInt(CRC_OFFSET);
+	}
+
+	/**
+	 * recordBuffer̃R[h
+	 */
+	private void writeRecord(int position) throws IOException {
+		ByteBuffer buffer = this.recordBuffer;
+		buffer.clear();
+		long offset = HEADER_SIZE + (long) position * RECORD_SIZE;
+		while (buffer.hasRemaining()) {
+			offset += this.channel.write(buffer, offset);
+		}
+	}
+
+	/**
+	 * t@CJAݓr̃R[h؂̂Ă
+	 */
+	private void open() throws IOException {
+		long length = this.file.length();
+		if (length < HEADER_SIZE) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.flip();
+			this.channel.truncate(0);
+			this.channel.write(header, 0);
+			this.channel.force(false);
+			this.count = 0;
+			return;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		this.channel.read(header, 0);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("unknown index format");
+		}
+
+		// ݓrŏĨR[ĥݐ؂̂Ă
+		int records = (int) ((length - HEADER_SIZE) / RECORD_SIZE);
+		if (records > 0) {
+			this.recordBuffer.clear();
+			this.channel.read(this.recordBuffer, HEADER_SIZE + (long) (records - 1) * RECORD_SIZE);
+			if (!this.verify()) {
+				records--;
+			}
+		}
+
+		long validLength = HEADER_SIZE + (long) records * RECORD_SIZE;
+		if (validLength != length) {
+			Log.w(LOG_TAG, "truncate broken records: " + (length - validLength) + " bytes");
+			this.channel.truncate(validLength);
+		}
+		this.count = records;
+
+		// r̉ꂽR[h͓eMpłȂ߁AÕR[h̕я̃L[̍폜ς݃R[hɒu
+		// 킹ĒxꂽR[ḧꗗ
+		int corrupted = 0;
+		byte[] record = this.recordBuffer.array();
+		MappedByteBuffer buffer = this.map();
+		for (int position = 0; position < records; position++) {
+			buffer.position(HEADER_SIZE + position * RECORD_SIZE);
+			buffer.get(record, 0, RECORD_SIZE);
+			if (this.verify()) {
+				this.lastSortKey = this.recordBuffer.getLong(0);
+				long time = this.recordBuffer.getLong(8);
+				if (this.lastSortKey - time > MAX_DISORDER) {
+					this.addLate(time, position);
+				}
+				continue;
+			}
+
+			corrupted++;
+			Arrays.fill(record, (byte) 0);
+			this.recordBuffer.putLong(0, this.lastSortKey);
+			this.recordBuffer.putLong(8, this.lastSortKey);
+			this.recordBuffer.putInt(FLAGS_OFFSET, FLAG_DELETED);
+			this.recordBuffer.putInt(CRC_OFFSET, this.checksum(record));
+			this.writeRecord(position);
+		}
+		if (corrupted > 0) {
+			Log.w(LOG_TAG, "broken records replaced with deleted records: " + corrupted);
+		}
+		this.channel.force(false);
+	}
+}
@@ -0,0 +1,113 @@
+package sample.camera.capture;
+
+/**
+ * Lv`1̏
+ * 
+ * @author k-daigo
+ */
+public class CaptureRecord {
+	private final int position;
+	private final long time;
+	private final int cameraKey;
+	private final int size;
+	private final long contentHash;
+	private final long perceptualHash;
+	private final int flags;
+	private final String fileName;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param position ̈ʒu
+	 * @param time Lv`
+	 * @param cameraKey JID̃L[
+	 * @param size t@CTCY
+	 * @param contentHash ẽnbVl
+	 * @param perceptualHash 摜̒monbVliꍇ0j
+	 * @param flags tO
+	 * @param fileName t@C
+	 */
+	public CaptureRecord(int position, long time, int cameraKey, int size, long contentHash, long perceptualHash, int flags, String fileName) {
+		this.position = position;
+		this.time = time;
+		this.cameraKey = cameraKey;
+		this.size = size;
+		this.contentHash = contentHash;
+		this.perceptualHash = perceptualHash;
+		this.flags = flags;
+		this.fileName = fileName;
+	}
+
+	/**
+	 * ̈ʒuԂ
+	 * @return ʒu
+	 */
+	public int getPosition() {
+		return this.position;
+	}
+
+	/**
+	 * Lv`Ԃ
+	 * @return Lv`
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * JID̃L[Ԃ
+	 * @return L[iCaptureIndex.cameraKey()̒lj
+	 */
+	public int getCameraKey() {
+		return this.cameraKey;
+	}
+
+	/**
+	 * t@CTCYԂ
+	 * @return t@CTCYibytej
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * ẽnbVlԂ
+	 * @return nbVl
+	 */
+	public long getContentHash() {
+		return this.contentHash;
+	}
+
+	/**
+	 * 摜̒monbVlԂ
+	 * @return nbVliꍇ0j
+	 */
+	public long getPerceptualHash() {
+		return this.perceptualHash;
+	}
+
+	/**
+	 * tOԂ
+	 * @return tOiCaptureIndex.FLAG_*j
+	 */
+	public int getFlags() {
+		return this.flags;
+	}
+
+	/**
+	 * 폜ς݂Ԃ
+	 * @return	true	: 폜ς
+	 * 			false	: 폜
+	 */
+	public boolean isDeleted() {
+		return (this.flags & CaptureIndex.FLAG_DELETED) != 0;
+	}
+
+	/**
+	 * t@CԂ
+	 * @return t@C
+	 */
+	public String getFileName() {
+		return this.fileName;
+	}
+}
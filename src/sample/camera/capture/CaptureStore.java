@@ -0,0 +1,133 @@
+package sample.camera.capture;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.util.Log;
+
+/**
+ * Lv`vZXŎ󂯓nNX<br>
+ * iVOgj<br>
+ * Intentɂ̓Lv`̂ł͂ȂID݂̂i[A󂯎ʂIDŃLv`QƂB<br>
+ * svɂȂLv`release()ŉ邱ƁB
+ * ێĂTCY̍v𒴂ꍇ́AÂ̂B
+ * 
+ * @author k-daigo
+ */
+public class CaptureStore {
+	private static final String LOG_TAG = "CaptureStore:";
+
+	/** IntentɊi[L[ */
+	public static final String EXTRA_CAPTURE_ID = "capturId";
+
+	// ێTCY̏̏l
+	private static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+	// instance
+	private static CaptureStore captureStore;
+
+	private final Map<Long, Capture> captures = new LinkedHashMap<Long, Capture>();
+	private long nextId = 1;
+	private long usedBytes = 0;
+	private long maxBytes = DEFAULT_MAX_BYTES;
+
+	/**
+	 * RXgN^͉B
+	 */
+	private CaptureStore() {
+	}
+
+	/**
+	 * NX̃CX^XԂ
+	 * 
+	 * @return CaptureStorẽCX^X
+	 */
+	public static synchronized CaptureStore getInstance() {
+		if (captureStore == null) {
+			captureStore = new CaptureStore();
+		}
+		return captureStore;
+	}
+
+	/**
+	 * Lv`i[
+	 * 
+	 * @param capture Lv`
+	 * @return Lv`ID
+	 */
+	public synchronized long put(Capture capture) {
+		long id = this.nextId++;
+		this.captures.put(id, capture);
+		this.usedBytes += capture.getSizeInBytes();
+		this.trim(id);
+		return id;
+	}
+
+	/**
+	 * Lv`ԂiRs[͍sȂj
+	 * 
+	 * @param id Lv`ID
+	 * @return Lv`iς݂̏ꍇnullj
+	 */
+	public synchronized Capture get(long id) {
+		return this.captures.get(id);
+	}
+
+	/**
+	 * Lv`
+	 * 
+	 * @param id Lv`ID
+	 * @return Lv`iς݂̏ꍇnullj
+	 */
+	public synchronized Capture release(long id) {
+		Capture capture = this.captures.remove(id);
+		if (capture != null) {
+			this.usedBytes -= capture.getSizeInBytes();
+		}
+		return capture;
+	}
+
+	/**
+	 * ێĂTCY̍vԂ
+	 * @return TCYibytej
+	 */
+	public synchronized long getUsedBytes() {
+		return this.usedBytes;
+	}
+
+	/**
+	 * ێĂLv`̐Ԃ
+	 * @return Lv`̐
+	 */
+	public synchronized int size() {
+		return this.captures.size();
+	}
+
+	/**
+	 * ێTCY̏ݒ肷
+	 * @param maxBytes TCY̏ibytej
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		this.trim(-1);
+	}
+
+	/**
+	 * 𒴂ĂꍇɌÂLv`
+	 * 
+	 * @param keepId ȂIDii[̃Lv`j
+	 */
+	private void trim(long keepId) {
+		Iterator<Map.Entry<Long, Capture>> iterator = this.captures.entrySet().iterator();
+		while (this.usedBytes > this.maxBytes && iterator.hasNext()) {
+			Map.Entry<Long, Capture> entry = iterator.next();
+			if (entry.getKey() == keepId) {
+				continue;
+			}
+			Log.w(LOG_TAG, "evict unreleased capture: " + entry.getKey());
+			this.usedBytes -= entry.getValue().getSizeInBytes();
+			iterator.remove();
+		}
+	}
+}
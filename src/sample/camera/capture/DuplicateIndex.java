@@ -0,0 +1,153 @@
+package sample.camera.capture;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * monbV̋߂Lv`T߂̍<br>
+ * 64bit̃nbVl16bit4ɕAꂼ̒l瓯lR[h悤ɂB<br>
+ * n~O3ȉł4̂ȂƂ1͈v邽߁A
+ * v݂̂r΁AĂقڈ̎ԂŒTB<br>
+ * ̒lvf͒ǋL̐VɂȂAя̃L[T͈͂OɂȂ_őł؂B<br>
+ * iCaptureIndex̃bNgpj
+ * 
+ * @author k-daigo
+ */
+class DuplicateIndex {
+
+	/** Tn~Ȍ */
+	static final int MAX_DISTANCE = 3;
+
+	private static final int CHUNKS = 4;
+	private static final int CHUNK_BITS = 16;
+	private static final int TABLE_SIZE = 1 << CHUNK_BITS;
+
+	// ̒l̐擪̗vfiꍇ-1j
+	private final int[][] heads = new int[CHUNKS][TABLE_SIZE];
+
+	// ̒l̗vfiꍇ-1j
+	private int[][] next = new int[CHUNKS][];
+
+	private long[] hashes;
+	private long[] sortKeys;
+	private long[] times;
+	private int[] cameraKeys;
+	private int[] positions;
+	private boolean[] removed;
+	private int count = 0;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param capacity e
+	 */
+	DuplicateIndex(int capacity) {
+		capacity = Math.max(capacity, 16);
+		for (int c = 0; c < CHUNKS; c++) {
+			Arrays.fill(this.heads[c], -1);
+			this.next[c] = new int[capacity];
+		}
+		this.hashes = new long[capacity];
+		this.sortKeys = new long[capacity];
+		this.times = new long[capacity];
+		this.cameraKeys = new int[capacity];
+		this.positions = new int[capacity];
+		this.removed = new boolean[capacity];
+	}
+
+	/**
+	 * R[hǉ
+	 * 
+	 * @param hash monbV
+	 * @param cameraKey JID̃L[
+	 * @param position ̈ʒu
+	 * @param sortKey я̃L[iǋLɑj
+	 * @param time Lv`
+	 */
+	void add(long hash, int cameraKey, int position, long sortKey, long time) {
+		if (this.count == this.hashes.length) {
+			this.grow();
+		}
+
+		int entry = this.count++;
+		this.hashes[entry] = hash;
+		this.sortKeys[entry] = sortKey;
+		this.times[entry] = time;
+		this.cameraKeys[entry] = cameraKey;
+		this.positions[entry] = position;
+		this.removed[entry] = false;
+		for (int c = 0; c < CHUNKS; c++) {
+			int chunk = chunk(hash, c);
+			this.next[c][entry] = this.heads[c][chunk];
+			this.heads[c][chunk] = entry;
+		}
+	}
+
+	/**
+	 * JŁALv`wȍ~́An~Owlȉ̃R[hT
+	 * 
+	 * @param hash monbV
+	 * @param cameraKey JID̃L[
+	 * @param maxDistance n~ȌiMAX_DISTANCEȉj
+	 * @param fromTime Lv`̉
+	 * @param index 폜ς݂mF
+	 * @return R[ḧʒuiꍇ-1j
+	 * @throws IOException
+	 */
+	int find(long hash, int cameraKey, int maxDistance, long fromTime, CaptureIndex index) throws IOException {
+		for (int c = 0; c < CHUNKS; c++) {
+			for (int entry = this.heads[c][chunk(hash, c)]; entry >= 0; entry = this.next[c][entry]) {
+				// Lv`͕я̃L[ȉ̂߁Aȍ~̗vf͑SĔ͈͊O
+				if (this.sortKeys[entry] < fromTime) {
+					break;
+				}
+				if (this.removed[entry] || this.times[entry] < fromTime || this.cameraKeys[entry] != cameraKey
+						|| Long.bitCount(this.hashes[entry] ^ hash) > maxDistance) {
+					continue;
+				}
+
+				// ۑԂ̊Ǘō폜ꂽ͈̂Ȍ̌₩O
+				if (index.isDeleted(this.positions[entry])) {
+					this.removed[entry] = true;
+					continue;
+				}
+				return this.positions[entry];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * eʂ{Ɋg
+	 */
+	private void grow() {
+		int capacity = this.hashes.length * 2;
+		for (int c = 0; c < CHUNKS; c++) {
+			this.next[c] = copyOf(this.next[c], capacity);
+		}
+		this.hashes = copyOf(this.hashes, capacity);
+		this.sortKeys = copyOf(this.sortKeys, capacity);
+		this.times = copyOf(this.times, capacity);
+		this.cameraKeys = copyOf(this.cameraKeys, capacity);
+		this.positions = copyOf(this.positions, capacity);
+		boolean[] removed = new boolean[capacity];
+		System.arraycopy(this.removed, 0, removed, 0, this.count);
+		this.removed = removed;
+	}
+
+	private long[] copyOf(long[] array, int capacity) {
+		long[] copy = new long[capacity];
+		System.arraycopy(array, 0, copy, 0, this.count);
+		return copy;
+	}
+
+	private int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, this.count);
+		return copy;
+	}
+
+	private static int chunk(long hash, int c) {
+		return (int) (hash >>> (c * CHUNK_BITS)) & (TABLE_SIZE - 1);
+	}
+}
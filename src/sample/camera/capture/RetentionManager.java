@@ -0,0 +1,274 @@
+package sample.camera.capture;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * ۑLv`̗eʂƕۑԂǗNX<br>
+ * iVOgj<br>
+ * Jɗeʂ̏ƕۑԂAÂ̂폜B<br>
+ * Ώۂ̓Lv`狁߁At@C̈ꗗ͑ȂB<br>
+ * 폜͐pXbhŏsAۑ~߂Ȃ悤ɂB
+ * 
+ * @author k-daigo
+ */
+public class RetentionManager {
+	private static final String LOG_TAG = "RetentionManager:";
+
+	/** ̗eʂ̏ibytej */
+	public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+	/** ̕ۑԁi~bj */
+	public static final long DEFAULT_MAX_AGE = 7L * 24 * 60 * 60 * 1000;
+
+	// ۑĂۑԂmFԊui~bj
+	private static final long CHECK_INTERVAL = 10 * 60 * 1000;
+
+	// 1ɂ܂Ƃ߂č폜t@C
+	private static final int BATCH_SIZE = 16;
+
+	// ܂Ƃ߂č폜̑҂ԁi~bj
+	private static final long BATCH_PAUSE = 200;
+
+	// instance
+	private static RetentionManager retentionManager;
+
+	private final Context context;
+	private final Map<Integer, Policy> policies = new HashMap<Integer, Policy>();
+	private final Map<Integer, CameraState> cameras = new HashMap<Integer, CameraState>();
+	private Policy defaultPolicy = new Policy(DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE);
+	private boolean requested = true;
+	private int evictedCount;
+
+	/**
+	 * RXgN^͉B
+	 * @param context Context
+	 */
+	private RetentionManager(Context context) {
+		this.context = context;
+
+		Thread worker = new Thread(new Worker(), "RetentionManager");
+		worker.setDaemon(true);
+		worker.setPriority(Thread.MIN_PRIORITY);
+		worker.start();
+	}
+
+	/**
+	 * NX̃CX^XԂ
+	 * 
+	 * @param context Context
+	 * @return RetentionManager̃CX^X
+	 */
+	public static synchronized RetentionManager getInstance(Context context) {
+		if (retentionManager == null) {
+			retentionManager = new RetentionManager(context.getApplicationContext());
+		}
+		return retentionManager;
+	}
+
+	/**
+	 * ʂ̐ݒ肪J́Aeʂ̏ƕۑԂݒ肷
+	 * 
+	 * @param maxBytes eʂ̏ibytej
+	 * @param maxAgeMillis ۑԁi~bj
+	 */
+	public synchronized void setDefaultPolicy(long maxBytes, long maxAgeMillis) {
+		this.defaultPolicy = new Policy(maxBytes, maxAgeMillis);
+		this.requestRun();
+	}
+
+	/**
+	 * J̗eʂ̏ƕۑԂݒ肷
+	 * 
+	 * @param cameraId JID
+	 * @param maxBytes eʂ̏ibytej
+	 * @param maxAgeMillis ۑԁi~bj
+	 */
+	public synchronized void setPolicy(String cameraId, long maxBytes, long maxAgeMillis) {
+		this.policies.put(CaptureIndex.cameraKey(cameraId), new Policy(maxBytes, maxAgeMillis));
+		this.requestRun();
+	}
+
+	/**
+	 * eʂƕۑԂ̊mFvimF̊͑҂Ȃj
+	 */
+	public synchronized void requestRun() {
+		this.requested = true;
+		notifyAll();
+	}
+
+	/**
+	 * J̃Lv`̎gpeʂԂiɒǋLAmFς݂̂́j
+	 * 
+	 * @param cameraId JID
+	 * @return gpeʁibytej
+	 */
+	public synchronized long getUsedBytes(String cameraId) {
+		CameraState state = this.cameras.get(CaptureIndex.cameraKey(cameraId));
+		return state == null ? 0 : state.usedBytes;
+	}
+
+	/**
+	 * 폜Lv`̐Ԃ
+	 * @return 폜
+	 */
+	public synchronized int getEvictedCount() {
+		return this.evictedCount;
+	}
+
+	/**
+	 * mF̗v҂
+	 */
+	private synchronized void await() throws InterruptedException {
+		if (!this.requested) {
+			wait(CHECK_INTERVAL);
+		}
+		this.requested = false;
+	}
+
+	/**
+	 * ̃R[hgpeʂɉ
+	 */
+	private synchronized void account(CaptureRecord record) {
+		CameraState state = this.cameras.get(record.getCameraKey());
+		if (state == null) {
+			state = new CameraState(record.getCameraKey());
+			this.cameras.put(record.getCameraKey(), state);
+		}
+		state.usedBytes += record.getSize();
+	}
+
+	/**
+	 * 폜R[hgpeʂ珜
+	 */
+	private synchronized void evicted(CameraState state, CaptureRecord record) {
+		state.usedBytes -= record.getSize();
+		this.evictedCount++;
+	}
+
+	/**
+	 * 폜Ώۂ肷
+	 */
+	private synchronized boolean isExpired(CameraState state, CaptureRecord record, long now) {
+		Policy policy = this.policies.get(state.cameraKey);
+		if (policy == null) {
+			policy = this.defaultPolicy;
+		}
+		return state.usedBytes > policy.maxBytes || record.getTime() < now - policy.maxAgeMillis;
+	}
+
+	/**
+	 * eʂ̏ƕۑ
+	 */
+	private static class Policy {
+		private final long maxBytes;
+		private final long maxAgeMillis;
+
+		private Policy(long maxBytes, long maxAgeMillis) {
+			if (maxBytes < 0 || maxAgeMillis < 0) {
+				throw new IllegalArgumentException("maxBytes: " + maxBytes + " maxAgeMillis: " + maxAgeMillis);
+			}
+			this.maxBytes = maxBytes;
+			this.maxAgeMillis = maxAgeMillis;
+		}
+	}
+
+	/**
+	 * J̎gp
+	 */
+	private static class CameraState {
+		private final int cameraKey;
+
+		// 폜ĂȂLv`̍vTCY
+		private long usedBytes;
+
+		// ɍ폜̈ʒuiO͍폜ς݂̃Ĵ́j
+		private int cursor;
+
+		private CameraState(int cameraKey) {
+			this.cameraKey = cameraKey;
+		}
+	}
+
+	/**
+	 * 폜Xbh
+	 */
+	private class Worker implements Runnable {
+		// gpeʂɉ̈ʒu
+		private int accounted;
+
+		public void run() {
+			while (true) {
+				try {
+					await();
+					this.check();
+				} catch (InterruptedException e) {
+					return;
+				} catch (IOException e) {
+					Log.e(LOG_TAG, "check failed", e);
+				}
+			}
+		}
+
+		/**
+		 * VR[hWvA𒴂J̃Lv`폜
+		 */
+		private void check() throws IOException, InterruptedException {
+			CaptureIndex index = CaptureIndex.getInstance(context);
+			int size = index.size();
+			for (; this.accounted < size; this.accounted++) {
+				CaptureRecord record = index.get(this.accounted);
+				if (!record.isDeleted()) {
+					account(record);
+				}
+			}
+
+			CameraState[] states;
+			synchronized (RetentionManager.this) {
+				states = cameras.values().toArray(new CameraState[cameras.size()]);
+			}
+
+			long now = System.currentTimeMillis();
+			for (CameraState state : states) {
+				this.evict(index, state, now);
+			}
+		}
+
+		/**
+		 * J̃Lv`Â̂폜
+		 */
+		private void evict(CaptureIndex index, CameraState state, long now) throws IOException, InterruptedException {
+			int batch = 0;
+			while (state.cursor < this.accounted) {
+				CaptureRecord record = index.get(state.cursor);
+				if (record.getCameraKey() != state.cameraKey || record.isDeleted()) {
+					state.cursor++;
+					continue;
+				}
+				if (!isExpired(state, record, now)) {
+					break;
+				}
+
+				// t@Cɍ폜itO̍XVOɈُIĂA폜ōςށj
+				context.deleteFile(record.getFileName());
+				ThumbnailCache.getInstance(context).remove(record.getFileName());
+				index.setFlags(state.cursor, record.getFlags() | CaptureIndex.FLAG_DELETED);
+				evicted(state, record);
+				state.cursor++;
+
+				if (++batch >= BATCH_SIZE) {
+					index.sync();
+					batch = 0;
+					Thread.sleep(BATCH_PAUSE);
+				}
+			}
+			if (batch > 0) {
+				index.sync();
+			}
+		}
+	}
+}
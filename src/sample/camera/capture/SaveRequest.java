@@ -0,0 +1,110 @@
+package sample.camera.capture;
+
+import android.graphics.Bitmap;
+
+/**
+ * ۑvێNX<br>
+ * JPEGf[^ꍇ͍ăGR[hɕۑAꍇBitmapGR[hĕۑ
+ * 
+ * @author k-daigo
+ */
+public class SaveRequest {
+	private final String fileName;
+	private final byte[] jpegData;
+	private final Bitmap bitmap;
+	private final String cameraId;
+	private final long time;
+	private boolean skipDuplicate = false;
+
+	/**
+	 * JPEGf[^ۑv𐶐
+	 * 
+	 * @param fileName t@Cigqj
+	 * @param jpegData JPEGf[^
+	 * @param cameraId JID
+	 * @param time Lv`
+	 */
+	public SaveRequest(String fileName, byte[] jpegData, String cameraId, long time) {
+		this.fileName = fileName + ".jpg";
+		this.jpegData = jpegData;
+		this.bitmap = null;
+		this.cameraId = cameraId;
+		this.time = time;
+	}
+
+	/**
+	 * Bitmapۑv𐶐iPNGŕۑj
+	 * 
+	 * @param fileName t@Cigqj
+	 * @param bitmap 摜
+	 * @param cameraId JID
+	 * @param time Lv`
+	 */
+	public SaveRequest(String fileName, Bitmap bitmap, String cameraId, long time) {
+		this.fileName = fileName + ".png";
+		this.jpegData = null;
+		this.bitmap = bitmap;
+		this.cameraId = cameraId;
+		this.time = time;
+	}
+
+	/**
+	 * ۑt@CԂ
+	 * @return t@C
+	 */
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	/**
+	 * JPEGf[^Ԃ
+	 * @return JPEGf[^iꍇnullj
+	 */
+	public byte[] getJpegData() {
+		return this.jpegData;
+	}
+
+	/**
+	 * 摜Ԃ
+	 * @return 摜iJPEGf[^ۑꍇnullj
+	 */
+	public Bitmap getBitmap() {
+		return this.bitmap;
+	}
+
+	/**
+	 * JIDԂ
+	 * @return JID
+	 */
+	public String getCameraId() {
+		return this.cameraId;
+	}
+
+	/**
+	 * Lv`Ԃ
+	 * @return Lv`
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * ۑς݂̃Lv`Ƃقړ摜̏ꍇɁAۑȂݒ肷<br>
+	 * ۑȂꍇASaveService.Callback͌Ă΂Ȃ
+	 * 
+	 * @param skipDuplicate	true	: ۑȂ
+	 * 						false	: ۑilj
+	 */
+	public void setSkipDuplicate(boolean skipDuplicate) {
+		this.skipDuplicate = skipDuplicate;
+	}
+
+	/**
+	 * قړ摜̏ꍇɕۑȂԂ
+	 * @return	true	: ۑȂ
+	 * 			false	: ۑ
+	 */
+	public boolean isSkipDuplicate() {
+		return this.skipDuplicate;
+	}
+}
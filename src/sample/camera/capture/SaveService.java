@@ -0,0 +1,510 @@
+package sample.camera.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import sample.camera.analysis.PerceptualHash;
+import sample.camera.utils.BitmapUtil;
+import sample.camera.utils.EncodeBuffer;
+import sample.camera.utils.JpegUtil;
+import sample.camera.utils.ParallelEncoder;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Lv`摜obNOEhŕۑNX<br>
+ * iVOgj<br>
+ * ۑv͏t̃L[ɐς݁ApXbhŃGR[hA݂sB<br>
+ * Aۑv͂܂Ƃ߂ď݁Afsync͂܂Ƃ߂čŌɍsB<br>
+ * ܂Ƃ߂Bitmap̕ۑvꍇ́AGR[hɍsB<br>
+ * ۑt@CfsynčɃLv`֒ǋLAeʂ̊mFvB<br>
+ * ۑXbh̊Jnɂ́AÖُIōւ̒ǋLRꂽt@CǋLB<br>
+ * dۑv́AÖ莞ԓɒmonbV߂Lv`ꍇ͕ۑȂB<br>
+ * ۑɗ\ȂOꍇ́A܂Ƃ߂̕ۑςłȂvsƂAۑXbh͌pB
+ * 
+ * @author k-daigo
+ */
+public class SaveService {
+	private static final String LOG_TAG = "SaveService:";
+
+	// L[ɐς߂ۑv̐
+	private static final int QUEUE_CAPACITY = 16;
+
+	// ܂Ƃ߂ďޕۑv̍ő吔
+	private static final int MAX_BATCH = 8;
+
+	/** dƂ݂ȂmonbṼn~Ȍl */
+	public static final int DEFAULT_DUPLICATE_DISTANCE = 3;
+
+	/** drLv`͈̔́i~bj̏l */
+	public static final long DEFAULT_DUPLICATE_WINDOW = 10 * 60 * 1000;
+
+	// ɃGR[hf̏
+	private static final long MAX_ENCODE_PIXELS = 8 * 1024 * 1024;
+
+	/**
+	 * ۑʂCallbackiUIXbhĂ΂j
+	 */
+	public interface Callback {
+		/**
+		 * ۑ
+		 * @param request ۑv
+		 */
+		void onSaved(SaveRequest request);
+
+		/**
+		 * ۑs
+		 * @param request ۑv
+		 * @param e O
+		 */
+		void onSaveFailed(SaveRequest request, IOException e);
+	}
+
+	// instance
+	private static SaveService saveService;
+
+	private final Context context;
+	private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<Entry>(QUEUE_CAPACITY);
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private final ParallelEncoder encoder = new ParallelEncoder(MAX_BATCH, MAX_ENCODE_PIXELS);
+	private volatile int duplicateDistance = DEFAULT_DUPLICATE_DISTANCE;
+	private volatile long duplicateWindow = DEFAULT_DUPLICATE_WINDOW;
+	private volatile int skippedCount = 0;
+
+	/**
+	 * RXgN^͉B
+	 * @param context Context
+	 */
+	private SaveService(Context context) {
+		this.context = context;
+
+		Thread worker = new Thread(new Worker(), "SaveService");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * NX̃CX^XԂ
+	 * 
+	 * @param context Context
+	 * @return SaveServicẽCX^X
+	 */
+	public static synchronized SaveService getInstance(Context context) {
+		if (saveService == null) {
+			saveService = new SaveService(context.getApplicationContext());
+		}
+		return saveService;
+	}
+
+	/**
+	 * ۑviۑ̊͑҂Ȃj
+	 * 
+	 * @param request ۑv
+	 * @param callback ۑʂCallbackinullj
+	 * @return	true	: 󂯕t
+	 * 			false	: L[t̂ߎ󂯕tȂ
+	 */
+	public boolean save(SaveRequest request, Callback callback) {
+		return this.queue.offer(new Entry(request, callback));
+	}
+
+	/**
+	 * ۑviL[t̏ꍇ͋󂭂܂ő҂j
+	 * 
+	 * @param request ۑv
+	 * @param callback ۑʂCallbackinullj
+	 * @throws InterruptedException
+	 */
+	public void put(SaveRequest request, Callback callback) throws InterruptedException {
+		this.queue.put(new Entry(request, callback));
+	}
+
+	/**
+	 * dƂ݂ȂmonbṼn~Oݒ肷
+	 * @param duplicateDistance n~Oi03B-1̏ꍇ͏dȂj
+	 */
+	public void setDuplicateDistance(int duplicateDistance) {
+		if (duplicateDistance < -1 || duplicateDistance > 3) {
+			throw new IllegalArgumentException("duplicateDistance: " + duplicateDistance);
+		}
+		this.duplicateDistance = duplicateDistance;
+	}
+
+	/**
+	 * drLv`͈̔͂ݒ肷<br>
+	 * ͈͂ÕLv`Ƃ͔rȂ߁Aʂɖ߂ꍇ͈͂߂ΕۑB
+	 * 
+	 * @param duplicateWindow ͈́i~bB0̏ꍇ͓̂̂̂ݔrj
+	 */
+	public void setDuplicateWindow(long duplicateWindow) {
+		if (duplicateWindow < 0) {
+			throw new IllegalArgumentException("duplicateWindow: " + duplicateWindow);
+		}
+		this.duplicateWindow = duplicateWindow;
+	}
+
+	/**
+	 * dƂĕۑȂԂ
+	 * @return 
+	 */
+	public int getSkippedCount() {
+		return this.skippedCount;
+	}
+
+	/**
+	 * ۑ҂̗vԂ
+	 * @return ۑ҂̗v
+	 */
+	public int getPendingCount() {
+		return this.queue.size();
+	}
+
+	/**
+	 * 1̕ۑvށifsyncAclose͍sȂj
+	 * 
+	 * @param entry ۑv
+	 * @param encoded Bitmap̃GR[hʁiJPEGf[^ۑꍇnullj
+	 * @throws IOException
+	 */
+	private void write(Entry entry, EncodeBuffer encoded) throws IOException {
+		SaveRequest request = entry.request;
+		entry.file = this.context.openFileOutput(request.getFileName(), Context.MODE_WORLD_READABLE);
+
+		BufferedOutputStream bos = new BufferedOutputStream(entry.file);
+		byte[] jpegData = request.getJpegData();
+		if (jpegData != null) {
+			JpegUtil.writeWithExif(jpegData, 0, jpegData.length, request.getCameraId(), request.getTime(), bos);
+			entry.contentHash = CaptureIndex.contentHash(jpegData, 0, jpegData.length);
+		} else {
+			// GR[hς݂̃obt@Rs[ɏo
+			encoded.writeTo(bos);
+			entry.contentHash = CaptureIndex.contentHash(encoded.getData(), 0, encoded.size());
+		}
+		bos.flush();
+		entry.size = (int) entry.file.getChannel().position();
+	}
+
+	/**
+	 * monbV߁AÖ莞ԓ̕ۑς݂̃Lv`̕ۑvƏd̂Ɉt<br>
+	 * monbV߂Ȃꍇ́Ad̊mFɕۑB
+	 * 
+	 * @param batch ۑv
+	 */
+	private void markDuplicates(List<Entry> batch) {
+		int distance = this.duplicateDistance;
+		long window = this.duplicateWindow;
+		CaptureIndex index = null;
+		for (int i = 0; i < batch.size(); i++) {
+			Entry entry = batch.get(i);
+			SaveRequest request = entry.request;
+			try {
+				byte[] jpegData = request.getJpegData();
+				if (jpegData != null) {
+					entry.perceptualHash = PerceptualHash.compute(jpegData, 0, jpegData.length);
+				} else {
+					entry.perceptualHash = PerceptualHash.compute(request.getBitmap());
+				}
+			} catch (RuntimeException e) {
+				Log.w(LOG_TAG, "perceptual hash failed: " + request.getFileName(), e);
+				entry.perceptualHash = 0;
+			}
+			if (!request.isSkipDuplicate() || distance < 0 || entry.perceptualHash == 0) {
+				continue;
+			}
+
+			// ܂Ƃ܂̐̕ۑv͂܂ɖ߁Aʂɔr
+			for (int j = 0; j < i && !entry.skipped; j++) {
+				Entry other = batch.get(j);
+				entry.skipped = !other.skipped && other.perceptualHash != 0
+						&& Math.abs(request.getTime() - other.request.getTime()) <= window
+						&& CaptureIndex.cameraKey(request.getCameraId()) == CaptureIndex.cameraKey(other.request.getCameraId())
+						&& PerceptualHash.distance(entry.perceptualHash, other.perceptualHash) <= distance;
+			}
+
+			if (!entry.skipped) {
+				try {
+					if (index == null) {
+						index = CaptureIndex.getInstance(this.context);
+					}
+					entry.skipped = index.findSimilar(request.getCameraId(), entry.perceptualHash, distance,
+							request.getTime() - window) >= 0;
+				} catch (IOException e) {
+					Log.w(LOG_TAG, "duplicate check failed: " + request.getFileName(), e);
+				} catch (RuntimeException e) {
+					Log.w(LOG_TAG, "duplicate check failed: " + request.getFileName(), e);
+				}
+			}
+			if (entry.skipped) {
+				this.skippedCount++;
+			}
+		}
+	}
+
+	/**
+	 * ÖُIōւ̒ǋLRꂽۑς݂̃t@CALv`֒ǋL<br>
+	 * ۑXbh̊JnɁAŏ̕ۑvOɌĂԁB
+	 */
+	private void reconcile() {
+		try {
+			if (CaptureIndex.getInstance(this.context).reconcile(this.context.getFilesDir()) > 0) {
+				RetentionManager.getInstance(this.context).requestRun();
+			}
+		} catch (IOException e) {
+			Log.e(LOG_TAG, "reconcile failed", e);
+		}
+	}
+
+	/**
+	 * ۑς݂̃t@CLv`֒ǋL
+	 * 
+	 * @param batch ۑv
+	 */
+	private void index(List<Entry> batch) {
+		try {
+			CaptureIndex index = CaptureIndex.getInstance(this.context);
+			boolean appended = false;
+			for (Entry entry : batch) {
+				if (entry.saved && !entry.indexed) {
+					SaveRequest request = entry.request;
+					index.append(request.getTime(), request.getCameraId(), entry.size, entry.contentHash, entry.perceptualHash,
+							request.getFileName());
+					entry.indexed = true;
+					appended = true;
+				}
+			}
+			if (appended) {
+				index.sync();
+				RetentionManager.getInstance(this.context).requestRun();
+			}
+		} catch (IOException e) {
+			// ɎsĂt@C͕ۑς݂̂߁Aۑ͎sƂȂ
+			Log.e(LOG_TAG, "index failed", e);
+		}
+	}
+
+	/**
+	 * 񂾃t@Cfsyncclose
+	 * 
+	 * @param entry ۑv
+	 * @throws IOException
+	 */
+	private void sync(Entry entry) throws IOException {
+		FileOutputStream file = entry.file;
+		entry.file = null;
+		try {
+			file.getFD().sync();
+		} finally {
+			file.close();
+		}
+		entry.saved = true;
+	}
+
+	/**
+	 * \ȂOŒf܂Ƃ܂́AۑςłȂvsƂ<br>
+	 * ݒ̃t@C͕č폜AoĂȂGR[hʂ͔jB
+	 * 
+	 * @param batch ۑv
+	 * @param cause O
+	 * @throws InterruptedException
+	 */
+	private void fail(List<Entry> batch, Throwable cause) throws InterruptedException {
+		while (this.encoder.getPendingCount() > 0) {
+			try {
+				ParallelEncoder.Result result = this.encoder.take();
+				if (result == null) {
+					break;
+				}
+				BitmapUtil.recycleBuffer(result.getBuffer());
+			} catch (IOException e) {
+				// sʂ͎oς
+			}
+		}
+
+		IOException error = new IOException("save aborted: " + cause);
+		error.initCause(cause);
+		for (Entry entry : batch) {
+			if (entry.saved || entry.skipped) {
+				continue;
+			}
+			if (entry.error == null) {
+				entry.error = error;
+			}
+			if (entry.file != null) {
+				discard(entry);
+			}
+		}
+
+		// ۑς݂ōɒǋLĂȂ̂͒ǋL
+		try {
+			index(batch);
+		} catch (RuntimeException e) {
+			Log.e(LOG_TAG, "index failed", e);
+		}
+	}
+
+	/**
+	 * ݂Ɏst@C폜
+	 * 
+	 * @param entry ۑv
+	 */
+	private void discard(Entry entry) {
+		if (entry.file != null) {
+			try {
+				entry.file.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			entry.file = null;
+		}
+		this.context.deleteFile(entry.request.getFileName());
+	}
+
+	/**
+	 * ۑʂUIXbhɒʒm
+	 * 
+	 * @param entry ۑv
+	 */
+	private void postResult(final Entry entry) {
+		if (entry.callback == null || entry.skipped) {
+			return;
+		}
+
+		this.handler.post(new Runnable() {
+			public void run() {
+				if (entry.error == null) {
+					entry.callback.onSaved(entry.request);
+				} else {
+					entry.callback.onSaveFailed(entry.request, entry.error);
+				}
+			}
+		});
+	}
+
+	/**
+	 * L[̕ۑv
+	 */
+	private static class Entry {
+		private final SaveRequest request;
+		private final Callback callback;
+		private FileOutputStream file;
+		private IOException error;
+		private boolean saved;
+		private boolean indexed;
+		private int size;
+		private long contentHash;
+		private long perceptualHash;
+		private boolean skipped;
+
+		private Entry(SaveRequest request, Callback callback) {
+			this.request = request;
+			this.callback = callback;
+		}
+	}
+
+	/**
+	 * ۑXbh
+	 */
+	private class Worker implements Runnable {
+		private final List<Entry> batch = new ArrayList<Entry>(MAX_BATCH);
+
+		public void run() {
+			reconcile();
+
+			while (true) {
+				try {
+					this.batch.add(queue.take());
+				} catch (InterruptedException e) {
+					return;
+				}
+				queue.drainTo(this.batch, MAX_BATCH - 1);
+
+				try {
+					this.saveBatch();
+				} catch (InterruptedException e) {
+					return;
+				} catch (Throwable t) {
+					// 1̕sŕۑXbh~܂Ȃ悤A܂Ƃ܂sƂČp
+					Log.e(LOG_TAG, "save failed", t);
+					try {
+						fail(this.batch, t);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+
+				for (Entry entry : this.batch) {
+					postResult(entry);
+				}
+				this.batch.clear();
+			}
+		}
+
+		/**
+		 * ܂Ƃ߂ۑvۑ
+		 * 
+		 * @throws InterruptedException
+		 */
+		private void saveBatch() throws InterruptedException {
+			// d͕̂ۑȂ
+			markDuplicates(this.batch);
+
+			// Bitmap͐ɂ܂Ƃ߂ăGR[hvAޏɎo
+			for (Entry entry : this.batch) {
+				if (entry.skipped) {
+					continue;
+				}
+				if (entry.request.getJpegData() == null) {
+					encoder.submit(entry.request.getBitmap(), Bitmap.CompressFormat.PNG, 100, entry);
+				}
+			}
+
+			// ܂Ƃ߂ď
+			for (Entry entry : this.batch) {
+				if (entry.skipped) {
+					continue;
+				}
+				EncodeBuffer encoded = null;
+				try {
+					if (entry.request.getJpegData() == null) {
+						encoded = encoder.take().getBuffer();
+					}
+					write(entry, encoded);
+				} catch (IOException e) {
+					Log.e(LOG_TAG, "write failed: " + entry.request.getFileName(), e);
+					entry.error = e;
+					discard(entry);
+				} finally {
+					if (encoded != null) {
+						BitmapUtil.recycleBuffer(encoded);
+					}
+				}
+			}
+
+			// fsync͂܂Ƃ߂čŌɍs
+			for (Entry entry : this.batch) {
+				if (entry.file != null) {
+					try {
+						sync(entry);
+					} catch (IOException e) {
+						Log.e(LOG_TAG, "sync failed: " + entry.request.getFileName(), e);
+						if (entry.error == null) {
+							entry.error = e;
+						}
+					}
+				}
+			}
+
+			// it@ĈݍɒǋL
+			index(this.batch);
+		}
+	}
+}
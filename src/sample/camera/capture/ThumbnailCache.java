@@ -0,0 +1,298 @@
+package sample.camera.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import sample.camera.image.FrameDecoder;
+import sample.camera.image.ImageScaler;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Lv`摜̃TlCǗNX<br>
+ * iVOgj<br>
+ * TlC̓TCYt̃LbV(LRU)ƁAfBXÑTlCt@C2iŕێB<br>
+ * ǂɂꍇ͐pXbhŌ摜kfR[hAImageScalerŒZӂTlC̑傫ƂȂ悤kĐB
+ * v͐V̂珈邽߁AXN[͕\̉摜D悳B
+ * 
+ * @author k-daigo
+ */
+public class ThumbnailCache {
+	private static final String LOG_TAG = "ThumbnailCache:";
+
+	// TlC̑傫
+	private static final int THUMBNAIL_SIZE = 96;
+
+	// LbṼTCY̏
+	private static final long MAX_MEMORY_BYTES = 4 * 1024 * 1024;
+
+	// ҂sɕێv̏iÂ̂jj
+	private static final int MAX_PENDING = 64;
+
+	/**
+	 * TlC擾CallbackiUIXbhĂ΂j
+	 */
+	public interface Callback {
+		/**
+		 * TlC̎擾
+		 * @param name Lv`̃t@C
+		 * @param thumbnail TlCiłȂꍇnullj
+		 */
+		void onThumbnailLoaded(String name, Bitmap thumbnail);
+	}
+
+	// instance
+	private static ThumbnailCache thumbnailCache;
+
+	private final Context context;
+	private final File directory;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+
+	// LbViANZXj
+	private final LinkedHashMap<String, Bitmap> memory = new LinkedHashMap<String, Bitmap>(64, 0.75f, true);
+	private long memoryBytes = 0;
+
+	// ҂̗viLv`ւ̗v͂܂Ƃ߂j
+	private final LinkedList<String> pending = new LinkedList<String>();
+	private final Map<String, Callback> callbacks = new HashMap<String, Callback>();
+
+	// TlCpiXbĥ݂ŎgpB摜̂ߕɂȂj
+	private final ImageScaler scaler = new ImageScaler(1);
+	private int[] pixels;
+
+	/**
+	 * RXgN^͉B
+	 * @param context Context
+	 */
+	private ThumbnailCache(Context context) {
+		this.context = context;
+		this.directory = new File(context.getCacheDir(), "thumbnails");
+		this.directory.mkdirs();
+
+		Thread worker = new Thread(new Worker(), "ThumbnailCache");
+		worker.setDaemon(true);
+		worker.setPriority(Thread.MIN_PRIORITY);
+		worker.start();
+	}
+
+	/**
+	 * NX̃CX^XԂ
+	 * 
+	 * @param context Context
+	 * @return ThumbnailCachẽCX^X
+	 */
+	public static synchronized ThumbnailCache getInstance(Context context) {
+		if (thumbnailCache == null) {
+			thumbnailCache = new ThumbnailCache(context.getApplicationContext());
+		}
+		return thumbnailCache;
+	}
+
+	/**
+	 * LbVɂTlCԂ
+	 * 
+	 * @param name Lv`̃t@C
+	 * @return TlCiLbVɖꍇnullj
+	 */
+	public synchronized Bitmap getCached(String name) {
+		return this.memory.get(name);
+	}
+
+	/**
+	 * TlC񓯊Ɏ擾
+	 * 
+	 * @param name Lv`̃t@C
+	 * @param callback 擾Callback
+	 */
+	public synchronized void load(String name, Callback callback) {
+		this.pending.remove(name);
+		this.pending.addFirst(name);
+		this.callbacks.put(name, callback);
+
+		while (this.pending.size() > MAX_PENDING) {
+			this.callbacks.remove(this.pending.removeLast());
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Lv`̃TlC폜iLv`폜ۂɌĂԁj
+	 * 
+	 * @param name Lv`̃t@C
+	 */
+	public synchronized void remove(String name) {
+		Bitmap bitmap = this.memory.remove(name);
+		if (bitmap != null) {
+			this.memoryBytes -= sizeOf(bitmap);
+		}
+		new File(this.directory, name).delete();
+	}
+
+	/**
+	 * LbVɒǉA𒴂Â̂j
+	 */
+	private synchronized void putMemory(String name, Bitmap bitmap) {
+		Bitmap old = this.memory.put(name, bitmap);
+		if (old != null) {
+			this.memoryBytes -= sizeOf(old);
+		}
+		this.memoryBytes += sizeOf(bitmap);
+
+		Iterator<Bitmap> iterator = this.memory.values().iterator();
+		while (this.memoryBytes > MAX_MEMORY_BYTES && iterator.hasNext()) {
+			this.memoryBytes -= sizeOf(iterator.next());
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * ̗voiꍇ͑҂j
+	 */
+	private synchronized String takeRequest() throws InterruptedException {
+		while (this.pending.isEmpty()) {
+			wait();
+		}
+		return this.pending.removeFirst();
+	}
+
+	/**
+	 * TlC擾iAfBXN̏ɒTAꍇ͐j
+	 */
+	private Bitmap loadThumbnail(String name) {
+		Bitmap thumbnail = this.getCached(name);
+		if (thumbnail != null) {
+			return thumbnail;
+		}
+
+		File thumbnailFile = new File(this.directory, name);
+		if (thumbnailFile.exists()) {
+			thumbnail = BitmapFactory.decodeFile(thumbnailFile.getPath());
+		}
+		if (thumbnail == null) {
+			thumbnail = this.createThumbnail(name, thumbnailFile);
+		}
+		if (thumbnail != null) {
+			this.putMemory(name, thumbnail);
+		}
+		return thumbnail;
+	}
+
+	/**
+	 * 摜kfR[hăTlC𐶐AfBXNɕۑ
+	 */
+	private Bitmap createThumbnail(String name, File thumbnailFile) {
+		String path = this.context.getFileStreamPath(name).getPath();
+
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeFile(path, options);
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return null;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = FrameDecoder.calculateSampleSize(options.outWidth, options.outHeight, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+		Bitmap thumbnail = BitmapFactory.decodeFile(path, options);
+		if (thumbnail == null) {
+			return null;
+		}
+		thumbnail = this.shrink(thumbnail);
+
+		BufferedOutputStream bos = null;
+		try {
+			bos = new BufferedOutputStream(new FileOutputStream(thumbnailFile));
+			thumbnail.compress(Bitmap.CompressFormat.JPEG, 80, bos);
+			bos.flush();
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "thumbnail not stored: " + name, e);
+			thumbnailFile.delete();
+		} finally {
+			try {
+				if (bos != null) {
+					bos.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return thumbnail;
+	}
+
+	/**
+	 * kfR[h摜AZӂTlC̑傫ƂȂ悤ωf@ŏk<br>
+	 * ikfR[h2̗ݏłkłȂ߁Aő2{̑傫cj
+	 * 
+	 * @param decoded kfR[h摜ikꍇ͉j
+	 * @return TlC
+	 */
+	private Bitmap shrink(Bitmap decoded) {
+		int width = decoded.getWidth();
+		int height = decoded.getHeight();
+		int shorter = Math.min(width, height);
+		if (shorter <= THUMBNAIL_SIZE) {
+			return decoded;
+		}
+
+		int thumbnailWidth = Math.max(1, (int) ((long) width * THUMBNAIL_SIZE / shorter));
+		int thumbnailHeight = Math.max(1, (int) ((long) height * THUMBNAIL_SIZE / shorter));
+		if (this.pixels == null || this.pixels.length < width * height) {
+			this.pixels = new int[width * height];
+		}
+		decoded.getPixels(this.pixels, 0, width, 0, 0, width, height);
+		int[] scaled = this.scaler.scale(this.pixels, width, height, thumbnailWidth, thumbnailHeight, ImageScaler.Mode.BOX);
+
+		Bitmap thumbnail = Bitmap.createBitmap(scaled, thumbnailWidth, thumbnailHeight, Bitmap.Config.ARGB_8888);
+		decoded.recycle();
+		return thumbnail;
+	}
+
+	/**
+	 * Bitmap̃TCYԂ
+	 */
+	private static long sizeOf(Bitmap bitmap) {
+		return (long) bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	/**
+	 * TlCXbh
+	 */
+	private class Worker implements Runnable {
+		public void run() {
+			while (true) {
+				final String name;
+				try {
+					name = takeRequest();
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				final Bitmap thumbnail = loadThumbnail(name);
+				final Callback callback;
+				synchronized (ThumbnailCache.this) {
+					callback = callbacks.remove(name);
+				}
+				if (callback == null) {
+					continue;
+				}
+
+				handler.post(new Runnable() {
+					public void run() {
+						callback.onThumbnailLoaded(name, thumbnail);
+					}
+				});
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package sample.camera.device;
+
+/**
+ * 摜̎擾ԊuAJ̉f̕ωɉĐ؂ւNX<br>
+ * ω̖ԂԑJ͎擾Ԋu𒷂Aωo_Ō̊Ԋuɖ߂B<br>
+ * ὥAoꍇ͓̂ZAꍇ͉摜f[^̃nbVlōsB
+ * 
+ * @author k-daigo
+ */
+public class FetchScheduler {
+
+	/** ωԂ̎擾Ԋȕli~bB0̏ꍇ͑҂Ȃj */
+	public static final long DEFAULT_ACTIVE_INTERVAL = 0;
+
+	/** ωԂ̎擾Ԋȕli~bj */
+	public static final long DEFAULT_IDLE_INTERVAL = 2000;
+
+	/** ωԂƂ݂Ȃ܂ł̊Ԃ̏li~bj */
+	public static final long DEFAULT_QUIET_PERIOD = 10 * 1000;
+
+	private final long activeInterval;
+	private final long idleInterval;
+	private final long quietPeriod;
+
+	private long lastHash = 0;
+	private long lastActiveTime;
+	private long lastFetchTime = 0;
+	private boolean woken = false;
+	private int idleFetchCount = 0;
+
+	/**
+	 * RXgN^iԊu͏lj
+	 */
+	public FetchScheduler() {
+		this(DEFAULT_ACTIVE_INTERVAL, DEFAULT_IDLE_INTERVAL, DEFAULT_QUIET_PERIOD);
+	}
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param activeInterval ωԂ̎擾Ԋui~bj
+	 * @param idleInterval ωԂ̎擾Ԋui~bj
+	 * @param quietPeriod ωԂƂ݂Ȃ܂ł̊ԁi~bj
+	 */
+	public FetchScheduler(long activeInterval, long idleInterval, long quietPeriod) {
+		if (activeInterval < 0 || idleInterval < activeInterval || quietPeriod < 0) {
+			throw new IllegalArgumentException("activeInterval: " + activeInterval + " idleInterval: " + idleInterval
+					+ " quietPeriod: " + quietPeriod);
+		}
+		this.activeInterval = activeInterval;
+		this.idleInterval = idleInterval;
+		this.quietPeriod = quietPeriod;
+		this.lastActiveTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * 擾摜ʒm
+	 * 
+	 * @param contentHash 摜f[^̃nbVl
+	 * @param motionCells ̂Z̐ioꍇ-1j
+	 * @param time 擾
+	 */
+	public synchronized void onFrame(long contentHash, int motionCells, long time) {
+		boolean changed = motionCells >= 0 ? motionCells > 0 : contentHash != this.lastHash;
+		if (changed) {
+			this.lastActiveTime = time;
+		}
+		if (this.isIdle(time)) {
+			this.idleFetchCount++;
+		}
+		this.lastHash = contentHash;
+		this.lastFetchTime = time;
+	}
+
+	/**
+	 * ̎擾܂ő҂iwakeĂ΂ꂽꍇ͂ɖ߂j
+	 * 
+	 * @throws InterruptedException
+	 */
+	public synchronized void awaitNextFetch() throws InterruptedException {
+		while (!this.woken) {
+			long now = System.currentTimeMillis();
+			long interval = this.isIdle(now) ? this.idleInterval : this.activeInterval;
+			long wait = this.lastFetchTime + interval - now;
+			if (wait <= 0) {
+				break;
+			}
+			wait(wait);
+		}
+		this.woken = false;
+	}
+
+	/**
+	 * ω̂ƂāAɌ̊Ԋuɖ߂i쎞Avr[~Ȃǁj
+	 */
+	public synchronized void wake() {
+		this.lastActiveTime = System.currentTimeMillis();
+		this.woken = true;
+		notifyAll();
+	}
+
+	/**
+	 * ωA擾Ԋu𒷂Ă邩Ԃ
+	 * @return	true	: 擾Ԋu𒷂Ă
+	 * 			false	: ω
+	 */
+	public synchronized boolean isIdle() {
+		return this.isIdle(System.currentTimeMillis());
+	}
+
+	/**
+	 * 擾Ԋu𒷂ĂԂɎ擾񐔂Ԃ
+	 * @return 
+	 */
+	public synchronized int getIdleFetchCount() {
+		return this.idleFetchCount;
+	}
+
+	private boolean isIdle(long now) {
+		return now - this.lastActiveTime >= this.quietPeriod;
+	}
+}
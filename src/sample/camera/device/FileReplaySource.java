@@ -0,0 +1,206 @@
+package sample.camera.device;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import sample.camera.record.FrameDumpRecorder;
+
+/**
+ * FrameDumpRecorderŋL^t@CĐ擾<br>
+ * L^̊Ԋuw肵{ōČi{0̏ꍇ͑҂ɓǂݍށjB<br>
+ * M͊ɋL^̌oߎԁi{Ŋ́jlƂ邽߁A
+ * t@C͏ɓAԊủ摜B<br>
+ * w肵ꍇ͎MsƂɓlƂȂiw肵Ȃꍇ͍ĐJnjB
+ * 
+ * @author k-daigo
+ */
+public class FileReplaySource implements FrameSource {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final File file;
+	private final float speed;
+	private final boolean loop;
+	private final long baseTime;
+
+	private DataInputStream in;
+	private long firstRecordedTime;
+	private long startTime;
+	private long openedTime;
+	private long lastTime = -1;
+	private long lastInterval = 0;
+	private int frameCount = 0;
+	private volatile boolean closed = false;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param file L^t@C
+	 * @param speed {i1ŋL^̊ԊuA0̏ꍇ͑҂Ȃj
+	 * @param loop ɒBꍇɐ擪JԂ
+	 */
+	public FileReplaySource(File file, float speed, boolean loop) {
+		this(file, speed, loop, -1);
+	}
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param file L^t@C
+	 * @param speed {i1ŋL^̊ԊuA0̏ꍇ͑҂Ȃj
+	 * @param loop ɒBꍇɐ擪JԂ
+	 * @param baseTime ŏ̉摜̎Mi-1̏ꍇ͍ĐJnj
+	 */
+	public FileReplaySource(File file, float speed, boolean loop, long baseTime) {
+		if (speed < 0) {
+			throw new IllegalArgumentException("speed: " + speed);
+		}
+		if (baseTime < -1) {
+			throw new IllegalArgumentException("baseTime: " + baseTime);
+		}
+		this.file = file;
+		this.speed = speed;
+		this.loop = loop;
+		this.baseTime = baseTime;
+	}
+
+	public boolean read(FrameBuffer frame) throws IOException {
+		if (this.closed) {
+			if (this.in != null) {
+				this.closeStream();
+			}
+			return false;
+		}
+		if (this.in == null) {
+			this.open();
+		}
+
+		long recordedTime = this.readRecord(frame);
+		if (recordedTime < 0) {
+			// ɒBirŐ؂ꂽ摜͏j
+			this.closeStream();
+			if (!this.loop || this.frameCount == 0) {
+				this.closed = true;
+				return false;
+			}
+			this.open();
+			recordedTime = this.readRecord(frame);
+			if (recordedTime < 0) {
+				this.closeStream();
+				this.closed = true;
+				return false;
+			}
+		}
+
+		if (this.firstRecordedTime < 0) {
+			this.firstRecordedTime = recordedTime;
+		}
+		long elapsed = recordedTime - this.firstRecordedTime;
+		if (this.speed > 0) {
+			elapsed = (long) (elapsed / this.speed);
+		}
+		long time = this.startTime + elapsed;
+		if (this.speed > 0) {
+			long wait = this.openedTime + elapsed - System.currentTimeMillis();
+			if (wait > 0) {
+				try {
+					Thread.sleep(wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		frame.setTime(time);
+		if (this.lastTime >= 0 && time > this.lastTime) {
+			this.lastInterval = time - this.lastTime;
+		}
+		this.lastTime = time;
+		this.frameCount++;
+		return true;
+	}
+
+	public String getSourceId() {
+		return "replay:" + this.file.getName();
+	}
+
+	public boolean isPolled() {
+		return false;
+	}
+
+	/**
+	 * ȍ~̓ǂݍ݂͏I[Ƃit@C͓ǂݍݒ̃Xbhŕj
+	 */
+	public void close() {
+		this.closed = true;
+	}
+
+	/**
+	 * Đ摜̐Ԃ
+	 * @return 摜̐iJԂ܂ށj
+	 */
+	public int getFrameCount() {
+		return this.frameCount;
+	}
+
+	/**
+	 * t@CJAwb_mF<br>
+	 * JԂꍇ̊́AO̍Ō̉摜璼O̊Ԋu󂯂ƂB
+	 */
+	private void open() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file), BUFFER_SIZE));
+		try {
+			if (in.readInt() != FrameDumpRecorder.MAGIC || in.readInt() != FrameDumpRecorder.VERSION) {
+				throw new IOException("not a frame dump: " + this.file);
+			}
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+
+		this.in = in;
+		this.firstRecordedTime = -1;
+		this.openedTime = System.currentTimeMillis();
+		if (this.lastTime >= 0) {
+			this.startTime = this.lastTime + Math.max(1, this.lastInterval);
+		} else {
+			this.startTime = this.baseTime >= 0 ? this.baseTime : this.openedTime;
+		}
+	}
+
+	/**
+	 * 摜1ǂݍ
+	 * 
+	 * @return L^̎MiɒBꍇ-1j
+	 */
+	private long readRecord(FrameBuffer frame) throws IOException {
+		try {
+			long recordedTime = this.in.readLong();
+			int length = this.in.readInt();
+			if (length < 0) {
+				throw new IOException("invalid frame length: " + length);
+			}
+			byte[] data = frame.ensureCapacity(length);
+			this.in.readFully(data, 0, length);
+			frame.setLength(length);
+			return recordedTime;
+		} catch (EOFException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * t@C
+	 */
+	private void closeStream() {
+		try {
+			this.in.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			this.in = null;
+		}
+	}
+}
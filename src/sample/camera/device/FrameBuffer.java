@@ -0,0 +1,81 @@
+package sample.camera.device;
+
+/**
+ * M摜f[^i[obt@<br>
+ * z͍ėpAȂꍇ̂݊gB<br>
+ * iXbhZ[tł͂ȂB1Xbhgp邱Ɓj
+ * 
+ * @author k-daigo
+ */
+public class FrameBuffer {
+	private byte[] data;
+	private int length = 0;
+	private long time = -1;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param initialCapacity TCY
+	 */
+	public FrameBuffer(int initialCapacity) {
+		this.data = new byte[initialCapacity];
+	}
+
+	/**
+	 * 摜f[^Ԃigƕʂ̔zɂȂ邽߁AێȂƁj
+	 * @return 摜f[^
+	 */
+	public byte[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * 摜f[^̒Ԃ
+	 * @return 
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * 摜f[^̒ݒ肷
+	 * @param length 
+	 */
+	public void setLength(int length) {
+		if (length < 0 || length > this.data.length) {
+			throw new IllegalArgumentException("length: " + length);
+		}
+		this.length = length;
+	}
+
+	/**
+	 * MԂ
+	 * @return M
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * Mݒ肷
+	 * @param time M
+	 */
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+	/**
+	 * zw肵TCYȏɊgii[ς݂̃f[^͕ێj
+	 * 
+	 * @param capacity KvȃTCY
+	 * @return 摜f[^
+	 */
+	public byte[] ensureCapacity(int capacity) {
+		if (capacity > this.data.length) {
+			byte[] newData = new byte[Math.max(capacity, this.data.length * 2)];
+			System.arraycopy(this.data, 0, newData, 0, this.length);
+			this.data = newData;
+		}
+		return this.data;
+	}
+}
@@ -0,0 +1,430 @@
+package sample.camera.device;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.util.Log;
+
+/**
+ * M摜f[^AvgRő̒[ɒpNX<br>
+ * J̃T[oւ̐ڑ1̂܂܁AڑĂ[Ɉkꂽ摜f[^ăGR[hɑMB<br>
+ * J̃T[oƓ1ڑ1MĐؒf邽߁A[̑M҂L[͎ȂB
+ * ڑ[͎̉摜҂AỎ摜\Vꍇ͂ɑB<br>
+ * 摜f[^͉摜҂[ꍇ̂1񂾂ASĂ̒[ŋLB<br>
+ * M͌Œ萔̑MXbhōsA摜҂ԁAMɂ鎞Ԃ𒴂[͊ĎXbhŐؒfB
+ * 
+ * @author k-daigo
+ */
+public class FrameRelay {
+	private static final String LOG_TAG = "FrameRelay:";
+
+	/** ڑł[̏l */
+	public static final int DEFAULT_MAX_CLIENTS = 8;
+
+	// MXbh̐
+	private static final int SENDER_THREADS = 2;
+
+	// ڑɂM摜̌oߎԂ̏iʏ͒Ỏ摜̊Ԋu܂łƂAÂꍇ͎̉摜҂j
+	private static final long MAX_LATEST_AGE = 2000;
+
+	// 摜̊ԊuȂꍇɁAڑɂM摜̌oߎԂ̏
+	private static final long DEFAULT_LATEST_AGE = 200;
+
+	// 摜҂Ԃ̏i[͐ؒfj
+	private static final long FRAME_WAIT_TIMEOUT = 5000;
+
+	// 1̑Mɂ鎞Ԃ̏i[͐ؒfj
+	private static final long WRITE_TIMEOUT = 3000;
+
+	// ҂ԁAMԂmFԊu
+	private static final long WATCHDOG_INTERVAL = 500;
+
+	private final int port;
+	private final int maxClients;
+
+	private ServerSocket serverSocket;
+
+	// 摜҂[AMXbh҂[AM̒[
+	private final List<Client> waiting = new ArrayList<Client>();
+	private final LinkedList<Client> ready = new LinkedList<Client>();
+	private final List<Client> sending = new ArrayList<Client>();
+
+	// Oɕ摜i摜҂[ꍇnulljƁAỎ摜̎MAԊu
+	private Frame latest = null;
+	private long latestTime = 0;
+	private long frameInterval = 0;
+
+	// viMXbhAĎXbhXVj
+	private final AtomicLong sentCount = new AtomicLong();
+	private final AtomicLong slowClientCount = new AtomicLong();
+
+	/**
+	 * RXgN^i[͏lj
+	 * 
+	 * @param port ҂󂯂|[g
+	 */
+	public FrameRelay(int port) {
+		this(port, DEFAULT_MAX_CLIENTS);
+	}
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param port ҂󂯂|[g
+	 * @param maxClients ڑł[
+	 */
+	public FrameRelay(int port, int maxClients) {
+		if (maxClients < 1) {
+			throw new IllegalArgumentException("maxClients: " + maxClients);
+		}
+		this.port = port;
+		this.maxClients = maxClients;
+	}
+
+	/**
+	 * ҂󂯂Jn
+	 * 
+	 * @throws IOException
+	 */
+	public synchronized void start() throws IOException {
+		if (this.serverSocket != null) {
+			return;
+		}
+
+		ServerSocket server = new ServerSocket();
+		server.setReuseAddress(true);
+		server.bind(new InetSocketAddress(this.port));
+		this.serverSocket = server;
+
+		this.startThread(new Acceptor(server), "FrameRelay");
+		for (int i = 0; i < SENDER_THREADS; i++) {
+			this.startThread(new Sender(server), "FrameRelay-Sender");
+		}
+		this.startThread(new Watchdog(server), "FrameRelay-Watchdog");
+	}
+
+	/**
+	 * ҂󂯂IASĂ̒[ؒf
+	 */
+	public void stop() {
+		List<Client> closing;
+		synchronized (this) {
+			if (this.serverSocket != null) {
+				try {
+					this.serverSocket.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				this.serverSocket = null;
+			}
+			closing = new ArrayList<Client>(this.waiting);
+			closing.addAll(this.ready);
+			closing.addAll(this.sending);
+			this.waiting.clear();
+			this.ready.clear();
+			this.sending.clear();
+			this.latest = null;
+			this.latestTime = 0;
+			this.frameInterval = 0;
+
+			// MXbhI
+			notifyAll();
+		}
+
+		for (Client client : closing) {
+			client.close();
+		}
+	}
+
+	/**
+	 * M摜f[^A摜҂[ɒp
+	 * 
+	 * @param data 摜f[^
+	 * @param length 摜f[^̒
+	 * @param time M
+	 */
+	public void publish(byte[] data, int length, long time) {
+		synchronized (this) {
+			if (this.serverSocket == null) {
+				return;
+			}
+			if (this.latestTime != 0 && time > this.latestTime) {
+				this.frameInterval = time - this.latestTime;
+			}
+			this.latestTime = time;
+			this.latest = null;
+			if (this.waiting.isEmpty()) {
+				return;
+			}
+		}
+
+		// Mobt@͍ėp邽߁A1񂾂đSĂ̒[ŋL
+		byte[] copy = new byte[length];
+		System.arraycopy(data, 0, copy, 0, length);
+		Frame frame = new Frame(copy, time);
+
+		synchronized (this) {
+			if (this.serverSocket == null) {
+				return;
+			}
+			this.latest = frame;
+			for (Client client : this.waiting) {
+				client.frame = frame;
+				this.ready.addLast(client);
+			}
+			this.waiting.clear();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * ڑ̒[Ԃ
+	 * @return [
+	 */
+	public synchronized int getClientCount() {
+		return this.waiting.size() + this.ready.size() + this.sending.size();
+	}
+
+	/**
+	 * M摜̐Ԃ
+	 * @return 
+	 */
+	public long getSentCount() {
+		return this.sentCount.get();
+	}
+
+	/**
+	 * Mxߐؒf[̐Ԃ
+	 * @return 
+	 */
+	public long getSlowClientCount() {
+		return this.slowClientCount.get();
+	}
+
+	/**
+	 * f[XbhJn
+	 */
+	private void startThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * [o^
+	 * 
+	 * @return	true	: o^
+	 * 			false	: ڑł[𒴂Ă
+	 */
+	private synchronized boolean register(Client client) {
+		if (this.serverSocket == null || this.getClientCount() >= this.maxClients) {
+			return false;
+		}
+
+		// 1̊ԊuÂ摜͑Ȃip~܂ĂԂ̌Â摜ŐVƂđȂj
+		Frame frame = this.latest;
+		long maxAge = this.frameInterval > 0 ? Math.min(this.frameInterval, MAX_LATEST_AGE) : DEFAULT_LATEST_AGE;
+		long now = System.currentTimeMillis();
+		if (frame != null && now - frame.time <= maxAge) {
+			client.frame = frame;
+			this.ready.addLast(client);
+			notifyAll();
+		} else {
+			client.since = now;
+			this.waiting.add(client);
+		}
+		return true;
+	}
+
+	/**
+	 * p摜iL邽ߕύXȂj
+	 */
+	private static class Frame {
+		private final byte[] data;
+		private final long time;
+
+		private Frame(byte[] data, long time) {
+			this.data = data;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * ڑ̒[iԂFrameRelaỹbNŕی삷j
+	 */
+	private static class Client {
+		private final Socket socket;
+
+		// M摜
+		private Frame frame;
+
+		// 摜҂n߂A܂͑Mn߂
+		private long since;
+
+		private boolean closed = false;
+
+		private Client(Socket socket) {
+			this.socket = socket;
+		}
+
+		/**
+		 * ؒfiM̏ꍇ͑M𒆒fj
+		 * 
+		 * @return	true	: ؒf
+		 * 			false	: ؒfς
+		 */
+		private boolean close() {
+			synchronized (this) {
+				if (this.closed) {
+					return false;
+				}
+				this.closed = true;
+			}
+			try {
+				this.socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * ڑ󂯕tXbh
+	 */
+	private class Acceptor implements Runnable {
+		private final ServerSocket server;
+
+		private Acceptor(ServerSocket server) {
+			this.server = server;
+		}
+
+		public void run() {
+			while (!this.server.isClosed()) {
+				Socket socket;
+				try {
+					socket = this.server.accept();
+				} catch (IOException e) {
+					// stopŕꂽ
+					return;
+				}
+
+				Client client = new Client(socket);
+				if (!register(client)) {
+					client.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 摜̌܂[ɏɑMXbh
+	 */
+	private class Sender implements Runnable {
+		private final ServerSocket server;
+
+		private Sender(ServerSocket server) {
+			this.server = server;
+		}
+
+		public void run() {
+			while (true) {
+				Client client;
+				synchronized (FrameRelay.this) {
+					while (serverSocket == this.server && ready.isEmpty()) {
+						try {
+							FrameRelay.this.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+					if (serverSocket != this.server) {
+						return;
+					}
+					client = ready.removeFirst();
+					client.since = System.currentTimeMillis();
+					sending.add(client);
+				}
+
+				try {
+					OutputStream out = client.socket.getOutputStream();
+					out.write(client.frame.data);
+					out.flush();
+					sentCount.incrementAndGet();
+				} catch (IOException e) {
+					Log.w(LOG_TAG, "client disconnected: " + e.getMessage());
+				} finally {
+					synchronized (FrameRelay.this) {
+						sending.remove(client);
+					}
+					client.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 摜҂ԁAMɂ鎞Ԃ𒴂[ؒfXbh<br>
+	 * J̎M~܂ĂԂAMIȂ[ؒfł悤ApublishƂ͕ʂɊmF
+	 */
+	private class Watchdog implements Runnable {
+		private final ServerSocket server;
+		private final List<Client> expired = new ArrayList<Client>();
+		private final List<Client> slow = new ArrayList<Client>();
+
+		private Watchdog(ServerSocket server) {
+			this.server = server;
+		}
+
+		public void run() {
+			while (true) {
+				try {
+					Thread.sleep(WATCHDOG_INTERVAL);
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				synchronized (FrameRelay.this) {
+					if (serverSocket != this.server) {
+						return;
+					}
+
+					long now = System.currentTimeMillis();
+					for (int i = waiting.size() - 1; i >= 0; i--) {
+						Client client = waiting.get(i);
+						if (now - client.since > FRAME_WAIT_TIMEOUT) {
+							waiting.remove(i);
+							this.expired.add(client);
+						}
+					}
+					// M̒[͐ؒfƏ݂sAMXbho^
+					for (int i = 0; i < sending.size(); i++) {
+						Client client = sending.get(i);
+						if (now - client.since > WRITE_TIMEOUT) {
+							this.slow.add(client);
+						}
+					}
+				}
+
+				for (Client client : this.expired) {
+					client.close();
+				}
+				for (Client client : this.slow) {
+					if (client.close()) {
+						Log.w(LOG_TAG, "slow client dropped: " + client.socket.getInetAddress());
+						slowClientCount.incrementAndGet();
+					}
+				}
+				this.expired.clear();
+				this.slow.clear();
+			}
+		}
+	}
+}
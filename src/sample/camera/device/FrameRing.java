@@ -0,0 +1,165 @@
+package sample.camera.device;
+
+import java.util.List;
+
+import sample.camera.capture.Capture;
+
+/**
+ * ߂̈k摜iJPEGjێ郊Oobt@<br>
+ * 摜f[^͏TCY̔z1ɘAĊi[AÂ̂㏑B<br>
+ * ێԂ߂́ATCYA𒴂̂͌Â̂jB
+ * 
+ * @author k-daigo
+ */
+public class FrameRing {
+	private final long durationMillis;
+	private final byte[] arena;
+	private final int[] offsets;
+	private final int[] lengths;
+	private final long[] times;
+
+	// łÂ摜̈ʒuAێĂ閇Ȁ݈ʒu
+	private int head = 0;
+	private int count = 0;
+	private int writePosition = 0;
+
+	// TCY𒴂ߕێłȂ
+	private int droppedCount = 0;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param durationMillis ێԁi~bj
+	 * @param maxBytes ێTCY̏ibytej
+	 * @param maxFrames ێ閇̏
+	 */
+	public FrameRing(long durationMillis, int maxBytes, int maxFrames) {
+		if (durationMillis <= 0 || maxBytes <= 0 || maxFrames <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.durationMillis = durationMillis;
+		this.arena = new byte[maxBytes];
+		this.offsets = new int[maxFrames];
+		this.lengths = new int[maxFrames];
+		this.times = new long[maxFrames];
+	}
+
+	/**
+	 * 摜ǉ
+	 * 
+	 * @param data 摜f[^
+	 * @param length 摜f[^̒
+	 * @param time M
+	 * @return	true	: ǉ
+	 * 			false	: TCY𒴂邽ߒǉȂ
+	 */
+	public synchronized boolean add(byte[] data, int length, long time) {
+		if (length > this.arena.length) {
+			this.droppedCount++;
+			return false;
+		}
+
+		// ێԂ߂́A𒴂̂j
+		while (this.count > 0 && this.times[this.head] < time - this.durationMillis) {
+			this.removeOldest();
+		}
+		if (this.count == this.offsets.length) {
+			this.removeOldest();
+		}
+
+		// Ɏ܂Ȃꍇ͐擪ɖ߂ỉ摜͍łÂߔjj
+		int position = this.writePosition;
+		if (position + length > this.arena.length) {
+			while (this.count > 0 && this.offsets[this.head] >= position) {
+				this.removeOldest();
+			}
+			position = 0;
+		}
+
+		// ㏑͈͂̉摜j
+		while (this.count > 0 && this.offsets[this.head] >= position && this.offsets[this.head] < position + length) {
+			this.removeOldest();
+		}
+
+		int index = (this.head + this.count) % this.offsets.length;
+		System.arraycopy(data, 0, this.arena, position, length);
+		this.offsets[index] = position;
+		this.lengths[index] = length;
+		this.times[index] = time;
+		this.count++;
+		this.writePosition = position + length;
+		return true;
+	}
+
+	/**
+	 * wԂ̉摜Rs[ĕԂ
+	 * 
+	 * @param fromTime Jni܂ށj
+	 * @param toTime Ii܂ށj
+	 * @param cameraId JID
+	 * @param out Rs[摜̊i[iÂj
+	 * @return Rs[
+	 */
+	public synchronized int copyFrames(long fromTime, long toTime, String cameraId, List<Capture> out) {
+		int copied = 0;
+		for (int i = 0; i < this.count; i++) {
+			int index = (this.head + i) % this.offsets.length;
+			long time = this.times[index];
+			if (time < fromTime || time > toTime) {
+				continue;
+			}
+
+			byte[] data = new byte[this.lengths[index]];
+			System.arraycopy(this.arena, this.offsets[index], data, 0, data.length);
+			out.add(new Capture(data, null, cameraId, time));
+			copied++;
+		}
+		return copied;
+	}
+
+	/**
+	 * ێĂ閇Ԃ
+	 * @return 
+	 */
+	public synchronized int size() {
+		return this.count;
+	}
+
+	/**
+	 * TCY𒴂ߕێłȂԂ
+	 * @return 
+	 */
+	public synchronized int getDroppedCount() {
+		return this.droppedCount;
+	}
+
+	/**
+	 * ێԂԂ
+	 * @return ێԁi~bj
+	 */
+	public long getDurationMillis() {
+		return this.durationMillis;
+	}
+
+	/**
+	 * SẲ摜j
+	 */
+	public synchronized void clear() {
+		this.head = 0;
+		this.count = 0;
+		this.writePosition = 0;
+	}
+
+	/**
+	 * łÂ摜j
+	 */
+	private void removeOldest() {
+		this.head = (this.head + 1) % this.offsets.length;
+		this.count--;
+		if (this.count == 0) {
+			this.head = 0;
+			this.writePosition = 0;
+		}
+	}
+}
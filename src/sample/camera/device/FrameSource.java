@@ -0,0 +1,43 @@
+package sample.camera.device;
+
+import java.io.IOException;
+
+/**
+ * SocketCameraɉ摜f[^擾<br>
+ * M@i\PbgAMJPEGAUDPAL^̍Đj\ALv`̏Ɛ؂藣B<br>
+ * read̓vr[XbhĂ΂Aclose͑̃XbhĂ΂邱ƂB
+ * 
+ * @author k-daigo
+ */
+public interface FrameSource {
+
+	/**
+	 * ̉摜f[^ǂݍށi͂܂ő҂j
+	 * 
+	 * @param frame ǂݍݐi摜f[^AAMݒ肷j
+	 * @return	true	: ǂݍ
+	 * 			false	: I[ɒB
+	 * @throws IOException MłȂǐĂяoōēxMj
+	 */
+	boolean read(FrameBuffer frame) throws IOException;
+
+	/**
+	 * 擾ʂ镶ԂiJIDƂĎgpj
+	 * @return ʂ镶
+	 */
+	String getSourceId();
+
+	/**
+	 * vƂ1擾擾Ԃ<br>
+	 * v̊ԊuŎ擾px𒲐ł̂͗v^݂̂ŁAĂ摜󂯎擾͊ԈȂB
+	 * 
+	 * @return	true	: vƂɎ擾
+	 * 			false	: Ă摜󂯎
+	 */
+	boolean isPolled();
+
+	/**
+	 * ڑiM̏ꍇ͒fj
+	 */
+	void close();
+}
@@ -0,0 +1,193 @@
+package sample.camera.device;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * HTTPMotion JPEG(multipart/x-mixed-replace)摜f[^擾擾<br>
+ * ڑێ܂܊ep[g1̉摜ƂēǂݍށB
+ * p[gContent-Lengthꍇ́ASOI}[JEOI}[J܂ł1ƂB<br>
+ * MɎsꍇ͐ڑA̓ǂݍ݂ōĐڑB
+ * 
+ * @author k-daigo
+ */
+public class MjpegFrameSource implements FrameSource {
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private final String url;
+	private final int timeout;
+
+	private volatile HttpURLConnection connection;
+	private InputStream in;
+	private final StringBuilder line = new StringBuilder();
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param url Xg[URL
+	 * @param timeout ^CAEgi~bj
+	 */
+	public MjpegFrameSource(String url, int timeout) {
+		this.url = url;
+		this.timeout = timeout;
+	}
+
+	public boolean read(FrameBuffer frame) throws IOException {
+		try {
+			if (this.in == null) {
+				this.open();
+			}
+
+			int contentLength = this.readPartHeaders();
+			if (contentLength >= 0) {
+				this.readFully(frame, contentLength);
+			} else {
+				this.readUntilEoi(frame);
+			}
+			frame.setTime(System.currentTimeMillis());
+			return true;
+		} catch (IOException e) {
+			this.close();
+			throw e;
+		}
+	}
+
+	public String getSourceId() {
+		return this.url;
+	}
+
+	public boolean isPolled() {
+		return false;
+	}
+
+	public void close() {
+		HttpURLConnection connection = this.connection;
+		this.connection = null;
+		if (connection != null) {
+			connection.disconnect();
+		}
+		this.in = null;
+	}
+
+	/**
+	 * ڑ
+	 */
+	private void open() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(this.url).openConnection();
+		connection.setConnectTimeout(this.timeout);
+		connection.setReadTimeout(this.timeout);
+		this.connection = connection;
+		if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+			throw new IOException("unexpected response: " + connection.getResponseCode());
+		}
+		this.in = new BufferedInputStream(connection.getInputStream(), BUFFER_SIZE);
+	}
+
+	/**
+	 * Eƃp[g̃wb_ǂݔ΂
+	 * 
+	 * @return Content-Lengthiꍇ-1j
+	 */
+	private int readPartHeaders() throws IOException {
+		int contentLength = -1;
+		boolean started = false;
+		while (true) {
+			String header = this.readLine();
+			if (header.length() == 0) {
+				if (started) {
+					return contentLength;
+				}
+				// ȆŐs
+				continue;
+			}
+			started = true;
+
+			int colon = header.indexOf(':');
+			if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+				try {
+					contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+				} catch (NumberFormatException e) {
+					contentLength = -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 1sǂݍށis͏j
+	 */
+	private String readLine() throws IOException {
+		this.line.setLength(0);
+		while (true) {
+			int c = this.in.read();
+			if (c < 0) {
+				throw new EOFException();
+			}
+			if (c == '\n') {
+				break;
+			}
+			if (c != '\r') {
+				this.line.append((char) c);
+			}
+		}
+		return this.line.toString();
+	}
+
+	/**
+	 * w肵ǂݍ
+	 */
+	private void readFully(FrameBuffer frame, int length) throws IOException {
+		byte[] data = frame.ensureCapacity(length);
+		int offset = 0;
+		while (offset < length) {
+			int read = this.in.read(data, offset, length - offset);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			offset += read;
+		}
+		frame.setLength(length);
+	}
+
+	/**
+	 * SOI}[JEOI}[J܂łǂݍ
+	 */
+	private void readUntilEoi(FrameBuffer frame) throws IOException {
+		frame.setLength(0);
+		int previous = -1;
+		int c;
+		// SOI}[J܂œǂݔ΂
+		while ((c = this.in.read()) >= 0) {
+			if (previous == 0xFF && c == 0xD8) {
+				break;
+			}
+			previous = c;
+		}
+		if (c < 0) {
+			throw new EOFException();
+		}
+
+		byte[] data = frame.ensureCapacity(BUFFER_SIZE);
+		data[0] = (byte) 0xFF;
+		data[1] = (byte) 0xD8;
+		int length = 2;
+		previous = c;
+		while ((c = this.in.read()) >= 0) {
+			if (length == data.length) {
+				frame.setLength(length);
+				data = frame.ensureCapacity(length + 1);
+			}
+			data[length++] = (byte) c;
+			if (previous == 0xFF && c == 0xD9) {
+				frame.setLength(length);
+				return;
+			}
+			previous = c;
+		}
+		throw new EOFException();
+	}
+}
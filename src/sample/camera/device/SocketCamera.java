@@ -1,12 +1,28 @@
 package sample.camera.device;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import sample.camera.analysis.FrameStatistics;
+import sample.camera.analysis.MotionDetector;
+import sample.camera.capture.Capture;
+import sample.camera.capture.CaptureIndex;
+import sample.camera.image.FilterChain;
+import sample.camera.image.FrameDecoder;
+import sample.camera.image.ImageScaler;
+import sample.camera.image.ZoomState;
+import sample.camera.record.AviRecorder;
+import sample.camera.record.DvrBuffer;
+import sample.camera.record.FrameDumpRecorder;
+import sample.camera.utils.JpegValidator;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Rect;
@@ -25,15 +41,38 @@ public class SocketCamera {
 	private static final String LOG_TAG = "SocketCamera:";
 	private static final int SOCKET_TIMEOUT = 1000;
 
+	// Mobt@̏TCY
+	private static final int INITIAL_FRAME_BUFFER_SIZE = 64 * 1024;
+
+	// ߂̉摜ێԁATCY̏l
+	private static final long DEFAULT_RING_DURATION = 5000;
+	private static final int DEFAULT_RING_BYTES = 4 * 1024 * 1024;
+
+	// Oobt@ɕێ閇̏i1bj
+	private static final int RING_FRAMES_PER_SECOND = 60;
+
+	// ^̃t[[giMԊu܂ȂꍇɎgpj
+	private static final int RECORD_FRAME_RATE = 10;
+
+	// ĐɎ̉摜܂ő҂Ԃ̏iL^r؂ꂽԊu͋l߂j
+	private static final long MAX_PLAYBACK_WAIT = 1000;
+
 	// T[õAhX
 	private static final String SERVER_ADDRESS = "192.168.111.100";
 	private static final int SERVER_PORT = 9889;
 
+	// Î~it𑜓xj̎擾|[g
+	private static final int STILL_SERVER_PORT = 9890;
+	private static final int STILL_SOCKET_TIMEOUT = 5000;
+
 	// instance
 	private static SocketCamera socketCamera;
 
 	private CameraPreview cameraPreview;
-	private Camera parametersCamera;
+	private Camera.Parameters parameters = null;
+
+	// 摜̎擾
+	private volatile FrameSource frameSource = new SocketFrameSource(SERVER_ADDRESS, SERVER_PORT, SOCKET_TIMEOUT);
 	private SurfaceHolder surfaceHolder;
 
 	private final boolean preserveAspectRatio = true;
@@ -42,9 +81,67 @@ public class SocketCamera {
 	// 摜TCY
 	private int width = 240;
 	private int height = 200;
-	private Rect bounds = new Rect(0, 0, width, height);
+	private final Rect bounds = new Rect(0, 0, width, height);
+
+	// `̋`i摜TCYA\TCYς̂ݍČvZj
+	private final Rect dest = new Rect();
+	private int destSourceWidth = -1;
+	private int destSourceHeight = -1;
+
+	// gk̕@inull̏ꍇCanvasŊgkj
+	private volatile ImageScaler.Mode scaleMode = null;
+	private ImageScaler scaler;
+	private int[] framePixels;
+
+	// \OɓKp摜tB^
+	private volatile FilterChain filterChain = null;
+	private Bitmap filteredBitmap;
+
+	// fW^Y[̏
+	private final ZoomState zoomState = new ZoomState();
 
 	private Bitmap currentBitmap = null;
+
+	// OɎM摜f[^iMXbhƂ̔rframeLockōsj
+	private final Object frameLock = new Object();
+	private byte[] latestFrame = null;
+	private int latestFrameLength = 0;
+	private long latestFrameTime = -1;
+
+	// ߂̉摜̃Oobt@io[XgBepj
+	private volatile FrameRing frameRing = null;
+
+	// oinull̏ꍇ͌oȂj
+	private volatile MotionDetector motionDetector = null;
+
+	// Io̓v
+	private final FrameStatistics frameStatistics = new FrameStatistics();
+
+	// Mf[^̌؁irŐ؂ꂽf[^\邩j
+	private final JpegValidator frameValidator = new JpegValidator();
+	private volatile boolean salvageTruncatedFrames = false;
+
+	// f̕ωɉ擾Ԋu
+	private final FetchScheduler fetchScheduler = new FetchScheduler();
+
+	// ^CVtgp̋L^inull̏ꍇ͋L^Ȃj
+	private volatile DvrBuffer dvrBuffer = null;
+
+	// M摜̒pinull̏ꍇ͒pȂj
+	private volatile FrameRelay frameRelay = null;
+
+	// ^i^撆łȂꍇnullj
+	private final Object recordLock = new Object();
+	private AviRecorder aviRecorder = null;
+	private FrameDumpRecorder dumpRecorder = null;
+
+	// Đ̉摜̃V[PXԍiĐłȂꍇ-1jƁAĐJn̓
+	// Đ̊JnA~̓xplaybackGenerationi߁AĐ҂I
+	private final Object playbackLock = new Object();
+	private long playbackSequence = -1;
+	private int playbackGeneration;
+	private long playbackBaseTime;
+	private long playbackBaseClock;
 	
 	/**
 	 * RXgN^͉B
@@ -77,6 +174,10 @@ public class SocketCamera {
 	 */
 	public void stopPreview() {
 		cameraPreview.stopPreview();
+		fetchScheduler.wake();
+		synchronized (playbackLock) {
+			playbackLock.notifyAll();
+		}
 	}
 
 	/**
@@ -89,6 +190,310 @@ public class SocketCamera {
 		return cameraPreview.isPreviewing();
 	}
 
+	/**
+	 * Î~擾Callback
+	 */
+	public interface PictureCallback {
+		/**
+		 * Î~̎擾i擾XbhĂ΂j
+		 * @param data	JPEGf[^i擾łȂꍇnullj
+		 * @param camera	J
+		 */
+		void onPictureTaken(byte[] data, SocketCamera camera);
+	}
+
+	/**
+	 * t𑜓x̐Î~擾<br>
+	 * vr[Ƃ͕ʂ̐ڑŎ擾邽߁Avr[͒~Ȃ
+	 * @param callback	擾Callback
+	 */
+	public void takePicture(PictureCallback callback) {
+		new PictureRequest(callback).start();
+	}
+
+	/**
+	 * o[XgBeCallback
+	 */
+	public interface BurstCallback {
+		/**
+		 * o[XgBe̊iBeXbhĂ΂j
+		 * @param captures	Be摜iÂj
+		 * @param camera	J
+		 */
+		void onBurstTaken(List<Capture> captures, SocketCamera camera);
+	}
+
+	/**
+	 * ߂̉摜ێ郊Oobt@̃TCYݒ肷
+	 * @param durationMillis	ێԁi~bj
+	 * @param maxBytes	ێTCY̏ibytej
+	 */
+	public void setFrameRingSize(long durationMillis, int maxBytes) {
+		int maxFrames = (int) Math.max(1, durationMillis * RING_FRAMES_PER_SECOND / 1000);
+		this.frameRing = new FrameRing(durationMillis, maxBytes, maxFrames);
+	}
+
+	/**
+	 * o[XgBes<br>
+	 * ĂяoỎ摜̓Oobt@擾AĂяỏ摜͎w莞ԎM҂Ď擾<br>
+	 * iĂяoO̎擾Ԃ̓Oobt@̕ێԂ܂łƂȂj
+	 * @param preMillis	ĂяoO̎擾ԁi~bj
+	 * @param postMillis	Ăяo̎擾ԁi~bj
+	 * @param callback	BeCallback
+	 */
+	public void takeBurst(final long preMillis, final long postMillis, final BurstCallback callback) {
+		final FrameRing ring = this.getFrameRing();
+		final long trigger = System.currentTimeMillis();
+
+		// Ăяỏ摜͌̊ԊuŎ擾
+		this.fetchScheduler.wake();
+
+		new Thread("BurstCapture") {
+			@Override
+			public void run() {
+				List<Capture> captures = new ArrayList<Capture>();
+				ring.copyFrames(trigger - preMillis, trigger, getCameraId(), captures);
+				try {
+					Thread.sleep(postMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				ring.copyFrames(trigger + 1, trigger + postMillis, getCameraId(), captures);
+				callback.onBurstTaken(captures, SocketCamera.this);
+			}
+		}.start();
+	}
+
+	/**
+	 * Oobt@Ԃȉꍇ͏TCYŐj
+	 * @return Oobt@
+	 */
+	private synchronized FrameRing getFrameRing() {
+		if (this.frameRing == null) {
+			this.setFrameRingSize(DEFAULT_RING_DURATION, DEFAULT_RING_BYTES);
+		}
+		return this.frameRing;
+	}
+
+	/**
+	 * M摜̋L^ݒ肷
+	 * @param dvrBuffer	L^inull̏ꍇ͋L^Ȃj
+	 */
+	public void setDvrBuffer(DvrBuffer dvrBuffer) {
+		this.stopPlayback();
+		this.dvrBuffer = dvrBuffer;
+	}
+
+	/**
+	 * M摜̋L^Ԃ
+	 * @return L^iݒ̏ꍇnullj
+	 */
+	public DvrBuffer getDvrBuffer() {
+		return this.dvrBuffer;
+	}
+
+	/**
+	 * L^摜̍ĐJn<br>
+	 * Đ͎Ms킸AL^摜̊Ԋuŕ\B
+	 * L^̖܂ōĐƃCu\ɖ߂
+	 * @param fromTime	ĐJn
+	 * @return	true	: ĐJn
+	 * 			false	: wȍ~̋L^
+	 */
+	public boolean startPlayback(long fromTime) {
+		DvrBuffer dvr = this.dvrBuffer;
+		if (dvr == null) {
+			return false;
+		}
+
+		long sequence = dvr.findSequence(fromTime);
+		if (sequence < 0) {
+			return false;
+		}
+
+		synchronized (playbackLock) {
+			this.playbackSequence = sequence;
+			this.playbackBaseTime = dvr.getTime(sequence);
+			this.playbackBaseClock = System.currentTimeMillis();
+			this.playbackGeneration++;
+			playbackLock.notifyAll();
+		}
+		this.fetchScheduler.wake();
+		return true;
+	}
+
+	/**
+	 * L^摜̍Đ~ACu\ɖ߂
+	 */
+	public void stopPlayback() {
+		synchronized (playbackLock) {
+			this.playbackSequence = -1;
+			this.playbackGeneration++;
+			playbackLock.notifyAll();
+		}
+	}
+
+	/**
+	 * L^摜ĐԂ
+	 * @return	true	: Đ
+	 * 			false	: Cu\
+	 */
+	public boolean isPlayingBack() {
+		synchronized (playbackLock) {
+			return this.playbackSequence >= 0;
+		}
+	}
+
+	/**
+	 * M摜AVIt@Cւ̘^Jn
+	 * @param output	o̓t@C
+	 * @throws IOException
+	 */
+	public void startRecording(File output) throws IOException {
+		synchronized (recordLock) {
+			if (this.aviRecorder != null) {
+				throw new IllegalStateException("already recording");
+			}
+			this.aviRecorder = new AviRecorder(output, RECORD_FRAME_RATE);
+		}
+	}
+
+	/**
+	 * ^I
+	 * @return ^悵摜̐i^撆łȂꍇ-1j
+	 * @throws IOException
+	 */
+	public int stopRecording() throws IOException {
+		synchronized (recordLock) {
+			if (this.aviRecorder == null) {
+				return -1;
+			}
+			AviRecorder recorder = this.aviRecorder;
+			this.aviRecorder = null;
+			recorder.close();
+			return recorder.getFrameCount();
+		}
+	}
+
+	/**
+	 * ^撆Ԃ
+	 * @return	true	: ^撆
+	 * 			false	: ^撆łȂ
+	 */
+	public boolean isRecording() {
+		synchronized (recordLock) {
+			return this.aviRecorder != null;
+		}
+	}
+
+	/**
+	 * M摜́AĐp̃t@C(FileReplaySource)ւ̋L^Jn
+	 * @param output	o̓t@C
+	 * @throws IOException
+	 */
+	public void startDump(File output) throws IOException {
+		synchronized (recordLock) {
+			if (this.dumpRecorder != null) {
+				throw new IllegalStateException("already dumping");
+			}
+			this.dumpRecorder = new FrameDumpRecorder(output);
+		}
+	}
+
+	/**
+	 * Đp̃t@Cւ̋L^I
+	 * @return L^摜̐iL^łȂꍇ-1j
+	 * @throws IOException
+	 */
+	public int stopDump() throws IOException {
+		synchronized (recordLock) {
+			if (this.dumpRecorder == null) {
+				return -1;
+			}
+			FrameDumpRecorder recorder = this.dumpRecorder;
+			this.dumpRecorder = null;
+			recorder.close();
+			return recorder.getFrameCount();
+		}
+	}
+
+	/**
+	 * M摜̑̒[ւ̒pJn<br>
+	 * ̒[̓J̃T[ȏɂ̒[̎w肵|[gɐڑB
+	 * p̓vr[̂ݍs
+	 * @param port	҂󂯂|[g
+	 * @throws IOException
+	 */
+	public synchronized void startRelay(int port) throws IOException {
+		if (this.frameRelay != null) {
+			throw new IllegalStateException("already relaying");
+		}
+		FrameRelay relay = new FrameRelay(port);
+		relay.start();
+		this.frameRelay = relay;
+
+		// 擾Ԋu𒷂Ăꍇ́Aɒʏ̊Ԋuɖ߂
+		this.fetchScheduler.wake();
+	}
+
+	/**
+	 * pI
+	 */
+	public synchronized void stopRelay() {
+		FrameRelay relay = this.frameRelay;
+		this.frameRelay = null;
+		if (relay != null) {
+			relay.stop();
+		}
+	}
+
+	/**
+	 * pԂiڑ̒[ȂǂQƂłj
+	 * @return pipĂȂꍇnullj
+	 */
+	public FrameRelay getFrameRelay() {
+		return this.frameRelay;
+	}
+
+	/**
+	 * M摜^AL^i݂Ɏsꍇ͂ꂼIj
+	 * @param data	JPEGf[^
+	 * @param length	JPEGf[^̒
+	 * @param time	M
+	 */
+	private void record(byte[] data, int length, long time) {
+		synchronized (recordLock) {
+			if (this.dumpRecorder != null) {
+				try {
+					this.dumpRecorder.addFrame(data, length, time);
+				} catch (IOException e) {
+					Log.e(LOG_TAG, "dump stopped", e);
+					try {
+						this.dumpRecorder.close();
+					} catch (IOException closeError) {
+						closeError.printStackTrace();
+					}
+					this.dumpRecorder = null;
+				}
+			}
+
+			if (this.aviRecorder == null) {
+				return;
+			}
+			try {
+				this.aviRecorder.addFrame(data, length, time);
+			} catch (IOException e) {
+				Log.e(LOG_TAG, "recording stopped", e);
+				try {
+					this.aviRecorder.close();
+				} catch (IOException closeError) {
+					closeError.printStackTrace();
+				}
+				this.aviRecorder = null;
+			}
+		}
+	}
+
 	/**
 	 * Ỏ摜Ԃ
 	 * @return Bitmap摜
@@ -98,6 +503,175 @@ public class SocketCamera {
 		return this.currentBitmap;
 	}
 
+	/**
+	 * fW^Y[̏ԂԂ<br>
+	 * ύX͎̃t[甽f
+	 * @return Y[
+	 */
+	public ZoomState getZoomState() {
+		return this.zoomState;
+	}
+
+	/**
+	 * vr[̊gk@ݒ肷
+	 * @param scaleMode	gk̕@
+	 * 					null	: CanvasŊgk
+	 */
+	public void setScaleMode(ImageScaler.Mode scaleMode) {
+		this.scaleMode = scaleMode;
+	}
+
+	/**
+	 * vr[摜ɓKp摜tB^ݒ肷<br>
+	 * tB^̓fR[hA`OɃvr[XbhœKpiݒ̓tB^ǉȂƁj
+	 * @param filterChain	摜tB^
+	 * 						null	: tB^KpȂ
+	 */
+	public void setFilterChain(FilterChain filterChain) {
+		this.filterChain = filterChain;
+	}
+
+	/**
+	 * vr[摜̓oݒ肷
+	 * @param motionDetector oinull̏ꍇ͌oȂj
+	 */
+	public void setMotionDetector(MotionDetector motionDetector) {
+		this.motionDetector = motionDetector;
+	}
+
+	/**
+	 * vr[摜̓oԂ
+	 * @return oiݒ̏ꍇnullj
+	 */
+	public MotionDetector getMotionDetector() {
+		return this.motionDetector;
+	}
+
+	/**
+	 * vr[摜̘Io̓vԂ
+	 * @return viĐ̉摜͊܂܂Ȃj
+	 */
+	public FrameStatistics getFrameStatistics() {
+		return this.frameStatistics;
+	}
+
+	/**
+	 * Mf[^̌؂Ԃisȃf[^̌QƂłj
+	 * @return 
+	 */
+	public JpegValidator getFrameValidator() {
+		return this.frameValidator;
+	}
+
+	/**
+	 * rŐ؂ꂽf[^\邩ݒ肷
+	 * @param salvageTruncatedFrames	true	: EOI}[Jĕ\iM͊̕DFɂȂj
+	 * 									false	: jĒỎ摜\
+	 */
+	public void setSalvageTruncatedFrames(boolean salvageTruncatedFrames) {
+		this.salvageTruncatedFrames = salvageTruncatedFrames;
+	}
+
+	/**
+	 * f̕ωɉ擾ԊuԂ
+	 * @return 擾ԊůǗiωJ̎擾Ԋu𒷂j
+	 */
+	public FetchScheduler getFetchScheduler() {
+		return this.fetchScheduler;
+	}
+
+	/**
+	 * vr[摜̕\̋`Ԃ
+	 * 
+	 * @param sourceWidth 摜̕
+	 * @param sourceHeight 摜̍
+	 * @param out \̋`iSurfaceView̍Wj
+	 */
+	public void getDisplayRect(int sourceWidth, int sourceHeight, Rect out) {
+		synchronized (bounds) {
+			if (bounds.right == sourceWidth && bounds.bottom == sourceHeight) {
+				out.set(0, 0, sourceWidth, sourceHeight);
+			} else if (sourceWidth == destSourceWidth && sourceHeight == destSourceHeight) {
+				out.set(dest);
+			} else {
+				out.set(bounds);
+			}
+		}
+	}
+
+	/**
+	 * OɎM摜̈kf[^iJPEGjԂ
+	 * @return JPEGf[^̃Rs[iM̏ꍇnullj
+	 */
+	public byte[] getCapturData()
+	{
+		synchronized (frameLock) {
+			if (latestFrame == null) {
+				return null;
+			}
+			byte[] data = new byte[latestFrameLength];
+			System.arraycopy(latestFrame, 0, data, 0, latestFrameLength);
+			return data;
+		}
+	}
+
+	/**
+	 * OɎM摜̎MԂ
+	 * @return MiM̏ꍇ-1j
+	 */
+	public long getCapturTime()
+	{
+		synchronized (frameLock) {
+			return latestFrameTime;
+		}
+	}
+
+	/**
+	 * vr[Ƃ͕ʂ̐ڑ1摜擾<br>
+	 * ĂяoXbhŎM邽߁AUIXbh͌Ă΂Ȃ
+	 * @return JPEGf[^
+	 * @throws IOException 擾łȂi擾J̃T[ołȂꍇ܂ށj
+	 */
+	public byte[] fetchFrame() throws IOException {
+		FrameSource source = this.frameSource;
+		if (!(source instanceof SocketFrameSource)) {
+			throw new IOException("not supported by source: " + source.getSourceId());
+		}
+		SocketFrameSource socketSource = (SocketFrameSource) source;
+		return receive(socketSource.getAddress(), socketSource.getPort(), SOCKET_TIMEOUT);
+	}
+
+	/**
+	 * Jʂ镶Ԃ
+	 * @return JIDi擾ʂ镶BJ̃T[ȍꍇ̓AhX:|[gj
+	 */
+	public String getCameraId() {
+		return this.frameSource.getSourceId();
+	}
+
+	/**
+	 * 摜̎擾ݒ肷ỉ摜؂ւj<br>
+	 * ؂ւO̎擾͕
+	 * @param frameSource	擾
+	 * 						null	: J̃T[o
+	 */
+	public void setFrameSource(FrameSource frameSource) {
+		FrameSource old = this.frameSource;
+		this.frameSource = frameSource != null ? frameSource : new SocketFrameSource(SERVER_ADDRESS, SERVER_PORT, SOCKET_TIMEOUT);
+		if (old != this.frameSource) {
+			old.close();
+		}
+		fetchScheduler.wake();
+	}
+
+	/**
+	 * 摜̎擾Ԃ
+	 * @return 擾
+	 */
+	public FrameSource getFrameSource() {
+		return this.frameSource;
+	}
+
 	/**
 	 * SurfaceHolderݒ肷
 	 * @param surfaceHolder
@@ -109,22 +683,103 @@ public class SocketCamera {
 	}
 
 	/**
-	 * Jp[^ݒ肷
+	 * Jp[^ݒ肷ivr[TCŶݎgpj
 	 * @param parameters
 	 */
 	public void setParameters(Camera.Parameters parameters) {
-		parametersCamera.setParameters(parameters);
+		this.parameters = parameters;
 		Size size = parameters.getPreviewSize();
-		bounds = new Rect(0, 0, size.width, size.height);
+		this.setPreviewSize(size.width, size.height);
 	}
 
 	/**
-	 * Jp[^Ԃ
-	 * @return Jp[^
+	 * Jp[^Ԃ<br>
+	 * [̃J͎gpȂ߁AsetParametersŐݒ肵̂Ԃ
+	 * @return Jp[^iݒ̏ꍇnullj
 	 */
 	public Camera.Parameters getParameters() {
 		Log.i(LOG_TAG, "Getting Socket Camera parameters");
-		return parametersCamera.getParameters();
+		return this.parameters;
+	}
+
+	/**
+	 * vr[̕\TCYݒ肷
+	 * @param width	
+	 * @param height	
+	 */
+	public void setPreviewSize(int width, int height) {
+		synchronized (bounds) {
+			bounds.set(0, 0, width, height);
+			destSourceWidth = -1;
+			destSourceHeight = -1;
+		}
+	}
+
+	/**
+	 * JT[oɐڑAڑ܂ŎMf[^Ԃ
+	 * @param address	T[õAhX
+	 * @param port	|[g
+	 * @param timeout	^CAEgi~bj
+	 * @return	Mf[^
+	 * @throws IOException
+	 */
+	private static byte[] receive(String address, int port, int timeout) throws IOException {
+		Socket socket = null;
+		try {
+			socket = new Socket();
+			socket.bind(null);
+			socket.setSoTimeout(timeout);
+			socket.connect(new InetSocketAddress(address, port), timeout);
+
+			InputStream in = socket.getInputStream();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_FRAME_BUFFER_SIZE);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			if (socket != null) {
+				socket.close();
+			}
+		}
+	}
+
+	/**
+	 * JT[ot𑜓x̐Î~擾NX
+	 * 
+	 * @author k-daigo
+	 */
+	private class PictureRequest extends Thread {
+		private final PictureCallback callback;
+
+		/**
+		 * RXgN^
+		 * @param callback	擾Callback
+		 */
+		public PictureRequest(PictureCallback callback) {
+			this.callback = callback;
+		}
+
+		/**
+		 * Î~擾XbhJn
+		 */
+		@Override
+		public void run() {
+			// Î~̓J̃T[ôݎ擾ł
+			byte[] data = null;
+			FrameSource source = frameSource;
+			if (source instanceof SocketFrameSource) {
+				try {
+					data = receive(((SocketFrameSource) source).getAddress(), STILL_SERVER_PORT, STILL_SOCKET_TIMEOUT);
+				} catch (IOException e) {
+					Log.w(LOG_TAG, "still request failed", e);
+				}
+			}
+
+			this.callback.onPictureTaken(data, SocketCamera.this);
+		}
 	}
 
 	/**
@@ -135,6 +790,12 @@ public class SocketCamera {
 	private class CameraPreview extends Thread {
 		private boolean previewing = false;
 
+		// Mobt@i2ʂ݂ɎgpAėpj
+		private FrameBuffer frame = new FrameBuffer(INITIAL_FRAME_BUFFER_SIZE);
+		private FrameBuffer spareFrame = new FrameBuffer(INITIAL_FRAME_BUFFER_SIZE);
+
+		private final FrameDecoder frameDecoder = new FrameDecoder();
+
 		/**
 		 * Lv`Ԃ
 		 * @return
@@ -166,30 +827,52 @@ public class SocketCamera {
 			this.startPreview();
 
 			while (previewing) {
+				// ω̖J͎擾Ԋu𒷂iĐA^撆ApAĂ擾͊ԈȂj
+				if (frameSource.isPolled() && !isPlayingBack() && !isRecording() && frameRelay == null) {
+					try {
+						fetchScheduler.awaitNextFetch();
+					} catch (InterruptedException e) {
+						break;
+					}
+					if (!previewing) {
+						break;
+					}
+				}
+
+				// Đ͕`ʂbNOɁAL^̊Ԋuɍ킹đҋ@
+				try {
+					this.awaitPlaybackFrame();
+				} catch (InterruptedException e) {
+					break;
+				}
+				if (!previewing) {
+					break;
+				}
+
 				Canvas canvas = null;
 				try {
 					canvas = surfaceHolder.lockCanvas(null);
 					synchronized (surfaceHolder) {
+						// sȃf[^AfR[hłȂ摜̏ꍇ͒Ỏ摜\
 						Bitmap bitmap = this.getData();
+						if (bitmap != null) {
+							currentBitmap = bitmap;
 
-						if (bounds.right == bitmap.getWidth() && bounds.bottom == bitmap.getHeight()) {
-							canvas.drawBitmap(bitmap, 0, 0, null);
-							
-						} else {
-							Rect dest;
-							if (preserveAspectRatio) {
-								dest = new Rect(bounds);
-								dest.bottom = bitmap.getHeight() * bounds.right / bitmap.getWidth();
-								dest.offset(0, (bounds.bottom - dest.bottom) / 2);
-							} else {
-								dest = bounds;
+							long time = System.currentTimeMillis();
+							MotionDetector detector = motionDetector;
+							int motionCells = -1;
+							if (detector != null) {
+								motionCells = detector.process(bitmap, time);
 							}
-							
-							if (canvas != null) {
-								currentBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
-								canvas.drawBitmap(bitmap, null, dest, paint);
+							this.notifyFetched(detector == null ? this.hashLatestFrame() : 0, motionCells, time);
+							if (!isPlayingBack()) {
+								frameStatistics.process(bitmap, time);
 							}
 						}
+
+						if (canvas != null && currentBitmap != null) {
+							this.drawFrame(canvas, currentBitmap);
+						}
 					}
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -202,29 +885,265 @@ public class SocketCamera {
 		}
 
 		/**
-		 * T[o摜擾
+		 * 擾摜擾ԊůǗɒʒmiĐ̉摜͏j
+		 */
+		private void notifyFetched(long contentHash, int motionCells, long time) {
+			if (!isPlayingBack()) {
+				fetchScheduler.onFrame(contentHash, motionCells, time);
+			}
+		}
+
+		/**
+		 * OɎM摜f[^̃nbVlԂ
+		 */
+		private long hashLatestFrame() {
+			synchronized (frameLock) {
+				return latestFrame == null ? 0 : CaptureIndex.contentHash(latestFrame, 0, latestFrameLength);
+			}
+		}
+
+		/**
+		 * 摜Canvasɕ`悷<br>
+		 * `̋`͉摜TCYA\TCYς̂ݍČvZA
+		 * t[̃IuWFNg͍sȂ
+		 * 
+		 * @param canvas `Canvas
+		 * @param bitmap `悷摜
+		 */
+		private void drawFrame(Canvas canvas, Bitmap bitmap) {
+			int sourceWidth = bitmap.getWidth();
+			int sourceHeight = bitmap.getHeight();
+			FilterChain filters = filterChain;
+			boolean filtered = filters != null && !filters.isEmpty();
+
+			synchronized (bounds) {
+				if (!filtered && bounds.right == sourceWidth && bounds.bottom == sourceHeight) {
+					canvas.drawBitmap(bitmap, 0, 0, null);
+					return;
+				}
+
+				if (sourceWidth != destSourceWidth || sourceHeight != destSourceHeight) {
+					this.updateDestination(sourceWidth, sourceHeight);
+				}
+			}
+
+			ImageScaler.Mode mode = scaleMode;
+			if (mode == null && !filtered) {
+				canvas.drawBitmap(bitmap, null, dest, paint);
+				return;
+			}
+
+			// fzŃtB^Agksiz͍ėpj
+			int size = sourceWidth * sourceHeight;
+			if (framePixels == null || framePixels.length < size) {
+				framePixels = new int[size];
+			}
+			bitmap.getPixels(framePixels, 0, sourceWidth, 0, 0, sourceWidth, sourceHeight);
+			if (filtered) {
+				filters.apply(framePixels, sourceWidth, sourceHeight);
+			}
+
+			if (mode == null) {
+				// tB^̉fėpBitmapɖ߂ACanvasŊgk
+				if (filteredBitmap == null || filteredBitmap.getWidth() != sourceWidth || filteredBitmap.getHeight() != sourceHeight) {
+					filteredBitmap = Bitmap.createBitmap(sourceWidth, sourceHeight, Bitmap.Config.ARGB_8888);
+				}
+				filteredBitmap.setPixels(framePixels, 0, sourceWidth, 0, 0, sourceWidth, sourceHeight);
+				canvas.drawBitmap(filteredBitmap, null, dest, paint);
+				return;
+			}
+
+			if (scaler == null) {
+				scaler = new ImageScaler();
+			}
+			int destWidth = dest.width();
+			int destHeight = dest.height();
+			int[] scaled = scaler.scale(framePixels, sourceWidth, sourceHeight, destWidth, destHeight, mode);
+			canvas.drawBitmap(scaled, 0, destWidth, dest.left, dest.top, destWidth, destHeight, false, null);
+		}
+
+		/**
+		 * `̋`ČvZ
 		 * 
-		 * @return Bitmap
+		 * @param sourceWidth 摜̕
+		 * @param sourceHeight 摜̍
+		 */
+		private void updateDestination(int sourceWidth, int sourceHeight) {
+			dest.set(bounds);
+			if (preserveAspectRatio) {
+				dest.bottom = sourceHeight * bounds.right / sourceWidth;
+				dest.offset(0, (bounds.bottom - dest.bottom) / 2);
+			}
+
+			destSourceWidth = sourceWidth;
+			destSourceHeight = sourceHeight;
+		}
+
+		/**
+		 * 擾摜擾<br>
+		 * Mf[^؂A\͈݂͂̂KvȏkŃfR[hB
+		 * 擾̏I[ɒBꍇ̓vr[~
+		 * 
+		 * @return Bitmapisȃf[^MꍇAfR[hłȂꍇnullj
 		 * @throws IOException
 		 */
 		private Bitmap getData() throws IOException {
-			Socket socket = null;
-			Bitmap bitmap = null;
-			try {
-				socket = new Socket();
-				socket.bind(null);
-				socket.setSoTimeout(SOCKET_TIMEOUT);
-				socket.connect(new InetSocketAddress(SERVER_ADDRESS, SERVER_PORT), SOCKET_TIMEOUT);
+			boolean live = !this.readPlaybackFrame();
+			if (live) {
+				FrameSource source = frameSource;
+				if (!source.read(this.frame)) {
+					Log.i(LOG_TAG, "end of source: " + source.getSourceId());
+					this.stopPreview();
+					return null;
+				}
+
+				// sȃf[^͋L^A\Ȃ
+				if (!this.validateFrame()) {
+					return null;
+				}
+			}
+
+			// M摜JA͑̃obt@ɎM
+			FrameBuffer received = this.frame;
+			byte[] data = received.getData();
+			int length = received.getLength();
+			long time = received.getTime();
+			synchronized (frameLock) {
+				latestFrame = data;
+				latestFrameLength = length;
+				latestFrameTime = time;
+				this.frame = this.spareFrame;
+				this.spareFrame = received;
+			}
+
+			if (live) {
+				getFrameRing().add(data, length, time);
+
+				DvrBuffer dvr = dvrBuffer;
+				if (dvr != null) {
+					dvr.append(data, length, time);
+				}
+				record(data, length, time);
+
+				FrameRelay relay = frameRelay;
+				if (relay != null) {
+					relay.publish(data, length, time);
+				}
+			}
+
+			int targetWidth;
+			int targetHeight;
+			synchronized (bounds) {
+				targetWidth = bounds.width();
+				targetHeight = bounds.height();
+			}
+			return frameDecoder.decode(data, length, zoomState, targetWidth, targetHeight);
+		}
+
+		/**
+		 * Mf[^fR[hOɌ؂<br>
+		 * rŐ؂ꂽf[^́AݒɉEOI}[J₤B
+		 * wb_AEOI}[Jȍ~̗]ȃf[^͏AMobt@̐擪摜f[^Ƃ
+		 * 
+		 * @return	true	: \ł
+		 * 			false	: sȃf[^
+		 */
+		private boolean validateFrame() {
+			int status = frameValidator.validate(this.frame.getData(), this.frame.getLength());
+			if (status == JpegValidator.STATUS_TRUNCATED && salvageTruncatedFrames) {
+				frameValidator.salvage(this.frame.ensureCapacity(frameValidator.getEnd() + 2));
+				status = JpegValidator.STATUS_VALID;
+			}
+			if (status != JpegValidator.STATUS_VALID) {
+				Log.w(LOG_TAG, "frame rejected: " + (status == JpegValidator.STATUS_TRUNCATED ? "truncated" : frameValidator.getReason()));
+				return false;
+			}
+
+			int start = frameValidator.getStart();
+			int end = frameValidator.getEnd();
+			if (start > 0) {
+				byte[] data = this.frame.getData();
+				System.arraycopy(data, start, data, 0, end - start);
+			}
+			this.frame.setLength(end - start);
+			return true;
+		}
 
-				InputStream in = socket.getInputStream();
-				bitmap = BitmapFactory.decodeStream(in);
-			} finally {
-				if(socket != null){
-					socket.close();
+		/**
+		 * Đ̏ꍇẢ摜̋L^̊Ԋuɍ킹đҋ@<br>
+		 * ҋ@MAX_PLAYBACK_WAIT܂łƂA镪͍ĐJn̓炵ċl߂B
+		 * Đ̊JnA~Avr[̒~őҋ@I
+		 * 
+		 * @throws InterruptedException
+		 */
+		private void awaitPlaybackFrame() throws InterruptedException {
+			DvrBuffer dvr = dvrBuffer;
+			synchronized (playbackLock) {
+				if (this.isPlaybackEnd(dvr)) {
+					return;
+				}
+				long time = dvr.getTime(Math.max(playbackSequence, dvr.getFirstSequence()));
+				if (time < 0) {
+					return;
+				}
+
+				long now = System.currentTimeMillis();
+				long wait = playbackBaseClock + (time - playbackBaseTime) - now;
+				if (wait > MAX_PLAYBACK_WAIT) {
+					playbackBaseClock -= wait - MAX_PLAYBACK_WAIT;
+					wait = MAX_PLAYBACK_WAIT;
+				}
+
+				long deadline = now + wait;
+				int generation = playbackGeneration;
+				while (wait > 0 && previewing && generation == playbackGeneration) {
+					playbackLock.wait(wait);
+					wait = deadline - System.currentTimeMillis();
+				}
+			}
+		}
+
+		/**
+		 * Đ̏ꍇAL^摜Mobt@ɓǂݍ<br>
+		 * ҋ@awaitPlaybackFrameŕ`ʂbNOɍς܂Ă
+		 * 
+		 * @return	true	: ǂݍ
+		 * 			false	: ĐłȂiL^̖ɒBꍇ܂ށj
+		 */
+		private boolean readPlaybackFrame() {
+			DvrBuffer dvr = dvrBuffer;
+			synchronized (playbackLock) {
+				if (this.isPlaybackEnd(dvr)) {
+					playbackSequence = -1;
+					return false;
+				}
+
+				// Đʒu㏑ꂽꍇ͍łÂ摜Đ
+				long sequence = Math.max(playbackSequence, dvr.getFirstSequence());
+				this.frame.setLength(0);
+				int read = dvr.read(sequence, this.frame.ensureCapacity(dvr.getLength(sequence)));
+				long time = dvr.getTime(sequence);
+				if (read < 0 || time < 0) {
+					playbackSequence = -1;
+					return false;
 				}
+
+				this.frame.setLength(read);
+				playbackSequence = sequence + 1;
 			}
+			this.frame.setTime(System.currentTimeMillis());
+			return true;
+		}
 
-			return bitmap;
+		/**
+		 * ĐI邩Ԃ
+		 * 
+		 * @param dvr L^
+		 * @return	true	: ĐłȂA܂͋L^̖ɒB
+		 * 			false	: Đ𑱂
+		 */
+		private boolean isPlaybackEnd(DvrBuffer dvr) {
+			return playbackSequence < 0 || dvr == null || playbackSequence >= dvr.getNextSequence();
 		}
 	}
 }
@@ -0,0 +1,111 @@
+package sample.camera.device;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * J̃T[o摜f[^擾擾<br>
+ * 1ɐڑAT[oڑ܂łɎMf[^1̉摜ƂB
+ * 
+ * @author k-daigo
+ */
+public class SocketFrameSource implements FrameSource {
+	private final String address;
+	private final int port;
+	private final int timeout;
+
+	// M̐ڑicloseŒfj
+	private volatile Socket socket;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param address T[õAhX
+	 * @param port |[g
+	 * @param timeout ^CAEgi~bj
+	 */
+	public SocketFrameSource(String address, int port, int timeout) {
+		this.address = address;
+		this.port = port;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * MrŃ^CAEgꍇ́AMς݂̃f[^Ԃi؂͌Ăяoōsj
+	 */
+	public boolean read(FrameBuffer frame) throws IOException {
+		Socket socket = null;
+		try {
+			socket = new Socket();
+			this.socket = socket;
+			socket.bind(null);
+			socket.setSoTimeout(this.timeout);
+			socket.connect(new InetSocketAddress(this.address, this.port), this.timeout);
+
+			InputStream in = socket.getInputStream();
+			frame.setLength(0);
+			while (true) {
+				byte[] data = frame.ensureCapacity(frame.getLength() + 1);
+
+				int read;
+				try {
+					read = in.read(data, frame.getLength(), data.length - frame.getLength());
+				} catch (SocketTimeoutException e) {
+					if (frame.getLength() == 0) {
+						throw e;
+					}
+					break;
+				}
+				if (read < 0) {
+					break;
+				}
+				frame.setLength(frame.getLength() + read);
+			}
+			frame.setTime(System.currentTimeMillis());
+			return true;
+		} finally {
+			this.socket = null;
+			if (socket != null) {
+				socket.close();
+			}
+		}
+	}
+
+	public String getSourceId() {
+		return this.address + ":" + this.port;
+	}
+
+	public boolean isPolled() {
+		return true;
+	}
+
+	public void close() {
+		Socket socket = this.socket;
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * T[õAhXԂ
+	 * @return AhX
+	 */
+	public String getAddress() {
+		return this.address;
+	}
+
+	/**
+	 * |[gԂ
+	 * @return |[g
+	 */
+	public int getPort() {
+		return this.port;
+	}
+}
@@ -0,0 +1,160 @@
+package sample.camera.device;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketTimeoutException;
+
+/**
+ * UDPŕđM摜f[^擾擾<br>
+ * ef[^O12oCg̃wb_i摜ԍAԍAA摜̒BrbOGfBAjƁA
+ * őCHUNK_SIZEoCg̃f[^ȂiŌȊOCHUNK_SIZEoCgjB<br>
+ * SĂ̕M摜݂̂ԂA܂܎̉摜͂ꍇ͔jB
+ * 
+ * @author k-daigo
+ */
+public class UdpFrameSource implements FrameSource {
+
+	/** wb_̃TCY */
+	public static final int HEADER_SIZE = 12;
+
+	/** 1f[^Õf[^̍őTCY */
+	public static final int CHUNK_SIZE = 1400;
+
+	// 󂯕t摜̍őTCY
+	private static final int MAX_FRAME_BYTES = 8 * 1024 * 1024;
+
+	private final int port;
+	private final int timeout;
+
+	private volatile DatagramSocket socket;
+	private final byte[] packetData = new byte[HEADER_SIZE + CHUNK_SIZE];
+	private final DatagramPacket packet = new DatagramPacket(this.packetData, this.packetData.length);
+
+	// M̉摜
+	private int frameId = -1;
+	private int frameLength;
+	private boolean[] received = new boolean[64];
+	private int receivedCount;
+	private int incompleteCount = 0;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param port ҂󂯂|[g
+	 * @param timeout ^CAEgi~bj
+	 */
+	public UdpFrameSource(int port, int timeout) {
+		this.port = port;
+		this.timeout = timeout;
+	}
+
+	public boolean read(FrameBuffer frame) throws IOException {
+		DatagramSocket socket = this.socket;
+		if (socket == null) {
+			socket = new DatagramSocket(this.port);
+			socket.setSoTimeout(this.timeout);
+			this.socket = socket;
+		}
+
+		// ǂݍݐ͌ĂяoɈقȂ邽߁AO̓r̉摜͈pȂ
+		this.frameId = -1;
+		this.receivedCount = 0;
+		while (true) {
+			this.packet.setLength(this.packetData.length);
+			try {
+				socket.receive(this.packet);
+			} catch (SocketTimeoutException e) {
+				throw e;
+			} catch (IOException e) {
+				this.close();
+				throw e;
+			}
+			if (this.packet.getLength() < HEADER_SIZE) {
+				continue;
+			}
+
+			int id = readInt(this.packetData, 0);
+			int index = (this.packetData[4] & 0xff) << 8 | (this.packetData[5] & 0xff);
+			int count = (this.packetData[6] & 0xff) << 8 | (this.packetData[7] & 0xff);
+			int length = readInt(this.packetData, 8);
+			int payload = this.packet.getLength() - HEADER_SIZE;
+			if (count == 0 || index >= count || length <= 0 || length > MAX_FRAME_BYTES
+					|| (count - 1) * CHUNK_SIZE >= length || length > count * CHUNK_SIZE) {
+				continue;
+			}
+
+			if (id != this.frameId || length != this.frameLength) {
+				if (this.receivedCount > 0) {
+					this.incompleteCount++;
+				}
+				this.begin(frame, id, length, count);
+			}
+
+			// dA̍Ȃ͖
+			int offset = index * CHUNK_SIZE;
+			if (this.received[index] || payload != Math.min(CHUNK_SIZE, length - offset)) {
+				continue;
+			}
+			System.arraycopy(this.packetData, HEADER_SIZE, frame.getData(), offset, payload);
+			this.received[index] = true;
+			this.receivedCount++;
+
+			if (this.receivedCount == count) {
+				frame.setLength(length);
+				frame.setTime(System.currentTimeMillis());
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 摜̎MJn
+	 */
+	private void begin(FrameBuffer frame, int id, int length, int count) {
+		this.frameId = id;
+		this.frameLength = length;
+		this.receivedCount = 0;
+		if (this.received.length < count) {
+			this.received = new boolean[count];
+		} else {
+			for (int i = 0; i < count; i++) {
+				this.received[i] = false;
+			}
+		}
+
+		frame.setLength(0);
+		frame.ensureCapacity(length);
+	}
+
+	public String getSourceId() {
+		return "udp:" + this.port;
+	}
+
+	public boolean isPolled() {
+		return false;
+	}
+
+	public void close() {
+		DatagramSocket socket = this.socket;
+		this.socket = null;
+		if (socket != null) {
+			socket.close();
+		}
+	}
+
+	/**
+	 * ܂ܔj摜̐Ԃ
+	 * @return 
+	 */
+	public int getIncompleteCount() {
+		return this.incompleteCount;
+	}
+
+	/**
+	 * rbOGfBA4oCgǂݍ
+	 */
+	private static int readInt(byte[] data, int pos) {
+		return (data[pos] & 0xff) << 24 | (data[pos + 1] & 0xff) << 16 | (data[pos + 2] & 0xff) << 8 | (data[pos + 3] & 0xff);
+	}
+}
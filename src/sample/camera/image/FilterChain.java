@@ -0,0 +1,331 @@
+package sample.camera.image;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * fz(ARGB)ɉ摜tB^ɓKpNX<br>
+ * f̃tB^Aꍇ1̑ɂ܂Ƃ߁AKϊ(ImageFilters.Levels)1̕ϊ\ɍB<br>
+ * ӉfQƂtB^͍Ɨp̔zɏo͂AƗp̔z̓TCYςȂėpB<br>
+ * 傫ȉ摜͈s̃^CɕAeXbh̃^CɎĕɏB<br>
+ * iXbhZ[tł͂ȂB1XbhgpAKpn߂̓tB^ǉȂƁj
+ * 
+ * @author k-daigo
+ */
+public class FilterChain {
+
+	/**
+	 * f̃tB^iӉfQƂȂj
+	 */
+	public interface PointFilter {
+		/**
+		 * 1fϊ
+		 * 
+		 * @param argb f
+		 * @return ϊ̉f
+		 */
+		int filter(int argb);
+	}
+
+	/**
+	 * ӉfQƂtB^
+	 */
+	public interface KernelFilter {
+		/**
+		 * w肵sϊĩXbhقȂsw肵ČĂ΂j
+		 * 
+		 * @param src ϊ̉摜S
+		 * @param dst ϊ
+		 * @param width 
+		 * @param height 
+		 * @param startRow Jns
+		 * @param endRow Isi܂܂Ȃj
+		 */
+		void filter(int[] src, int[] dst, int width, int height, int startRow, int endRow);
+	}
+
+	// 񏈗sf臒l
+	private static final int PARALLEL_THRESHOLD = 320 * 240;
+
+	// 1^C̍s
+	private static final int TILE_ROWS = 16;
+
+	private final List<Stage> stages = new ArrayList<Stage>();
+	private final int threadCount;
+	private WorkerThreads workers;
+	private final TileTask[] tasks;
+
+	// ėpƗp̔z
+	private int[] scratch;
+
+	// ̒iKƉ摜
+	private Stage stage;
+	private int[] src;
+	private int[] dst;
+	private int width;
+	private int height;
+	private int tileCount;
+	private final AtomicInteger nextTile = new AtomicInteger();
+
+	/**
+	 * CPŨRÃXbhŏCX^X𐶐
+	 */
+	public FilterChain() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * w肵XbhŏCX^X𐶐
+	 * 
+	 * @param threadCount 񏈗̃Xbhi1̏ꍇ͌ĂяoXbĥ݂ŏj
+	 */
+	public FilterChain(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("threadCount: " + threadCount);
+		}
+
+		this.threadCount = threadCount;
+		this.tasks = new TileTask[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			this.tasks[i] = new TileTask();
+		}
+	}
+
+	/**
+	 * f̃tB^ǉ
+	 * 
+	 * @param filter tB^
+	 * @return ̃CX^X
+	 */
+	public FilterChain add(PointFilter filter) {
+		Stage last = this.stages.isEmpty() ? null : this.stages.get(this.stages.size() - 1);
+		if (last instanceof PointStage) {
+			((PointStage) last).add(filter);
+		} else {
+			PointStage stage = new PointStage();
+			stage.add(filter);
+			this.stages.add(stage);
+		}
+		return this;
+	}
+
+	/**
+	 * ӉfQƂtB^ǉ
+	 * 
+	 * @param filter tB^
+	 * @return ̃CX^X
+	 */
+	public FilterChain add(KernelFilter filter) {
+		this.stages.add(new KernelStage(filter));
+		return this;
+	}
+
+	/**
+	 * tB^Ԃ
+	 * @return	true	: tB^
+	 * 			false	: tB^
+	 */
+	public boolean isEmpty() {
+		return this.stages.isEmpty();
+	}
+
+	/**
+	 * tB^ɓKp
+	 * 
+	 * @param pixels fziʂŏ㏑j
+	 * @param width 
+	 * @param height 
+	 */
+	public void apply(int[] pixels, int width, int height) {
+		int size = width * height;
+		int[] current = pixels;
+		// `̓xIterator𐶐Ȃ悤AYŎQƂ
+		int stageCount = this.stages.size();
+		for (int i = 0; i < stageCount; i++) {
+			Stage stage = this.stages.get(i);
+			stage.prepare();
+			if (stage instanceof PointStage) {
+				this.run(stage, current, current, width, height);
+				continue;
+			}
+
+			// ӉfQƂ邽߁Ả摜Ƃ͕ʂ̔zɏo͂
+			if (this.scratch == null || this.scratch.length < size) {
+				this.scratch = new int[size];
+			}
+			int[] target = current == pixels ? this.scratch : pixels;
+			this.run(stage, current, target, width, height);
+			current = target;
+		}
+
+		if (current != pixels) {
+			System.arraycopy(current, 0, pixels, 0, size);
+		}
+	}
+
+	/**
+	 * 񏈗p̃Xbh~
+	 */
+	public void shutdown() {
+		if (this.workers != null) {
+			this.workers.shutdown();
+			this.workers = null;
+		}
+	}
+
+	/**
+	 * ^Cɕ1iKs
+	 */
+	private void run(Stage stage, int[] src, int[] dst, int width, int height) {
+		this.stage = stage;
+		this.src = src;
+		this.dst = dst;
+		this.width = width;
+		this.height = height;
+		this.tileCount = (height + TILE_ROWS - 1) / TILE_ROWS;
+		this.nextTile.set(0);
+
+		int workerCount = Math.min(this.threadCount, this.tileCount);
+		if (workerCount <= 1 || width * height < PARALLEL_THRESHOLD) {
+			stage.filter(src, dst, width, height, 0, height);
+			return;
+		}
+
+		if (this.workers == null) {
+			this.workers = new WorkerThreads("FilterChain", this.threadCount - 1);
+		}
+
+		// ĂяoXbh^CifẴ^CI܂ł͖߂Ȃj
+		this.workers.start(this.tasks, workerCount - 1);
+		try {
+			this.processTiles();
+		} finally {
+			this.workers.await();
+		}
+	}
+
+	/**
+	 * ̃^CȂ܂ŏ
+	 */
+	private void processTiles() {
+		int tile;
+		while ((tile = this.nextTile.getAndIncrement()) < this.tileCount) {
+			int startRow = tile * TILE_ROWS;
+			int endRow = Math.min(this.height, startRow + TILE_ROWS);
+			this.stage.filter(this.src, this.dst, this.width, this.height, startRow, endRow);
+		}
+	}
+
+	/**
+	 * ^C^XNiėpj
+	 */
+	private class TileTask implements Runnable {
+		public void run() {
+			processTiles();
+		}
+	}
+
+	/**
+	 * tB^̓KpiK
+	 */
+	private abstract static class Stage {
+		/**
+		 * KpȌiĂяoXbh1Ă΂j
+		 */
+		void prepare() {
+		}
+
+		/**
+		 * w肵sϊ
+		 */
+		abstract void filter(int[] src, int[] dst, int width, int height, int startRow, int endRow);
+	}
+
+	/**
+	 * Af̃tB^1̑œKpiK
+	 */
+	private static class PointStage extends Stage {
+		private final List<PointFilter> filters = new ArrayList<PointFilter>();
+
+		// Kϊ̃tB^iɍ蒼j
+		private PointFilter[] fused = new PointFilter[0];
+		private ImageFilters.Levels[] merged = new ImageFilters.Levels[0];
+		private int fusedCount;
+
+		void add(PointFilter filter) {
+			this.filters.add(filter);
+			this.fused = new PointFilter[this.filters.size()];
+			this.merged = new ImageFilters.Levels[this.filters.size()];
+		}
+
+		@Override
+		void prepare() {
+			// AKϊ1̕ϊ\ɍiϊ\͖񍇐߁A͈͂̕ύXfj
+			int count = 0;
+			int mergedCount = 0;
+			int size = this.filters.size();
+			for (int i = 0; i < size;) {
+				PointFilter filter = this.filters.get(i);
+				int end = i + 1;
+				if (filter instanceof ImageFilters.Levels) {
+					while (end < size && this.filters.get(end) instanceof ImageFilters.Levels) {
+						end++;
+					}
+				}
+				if (end - i > 1) {
+					if (this.merged[mergedCount] == null) {
+						this.merged[mergedCount] = new ImageFilters.Levels();
+					}
+					ImageFilters.Levels levels = this.merged[mergedCount++];
+					levels.reset();
+					for (int j = i; j < end; j++) {
+						levels.append((ImageFilters.Levels) this.filters.get(j));
+					}
+					filter = levels;
+				}
+				this.fused[count++] = filter;
+				i = end;
+			}
+			this.fusedCount = count;
+		}
+
+		@Override
+		void filter(int[] src, int[] dst, int width, int height, int startRow, int endRow) {
+			PointFilter[] fused = this.fused;
+			int count = this.fusedCount;
+			int end = endRow * width;
+			if (count == 1) {
+				PointFilter filter = fused[0];
+				for (int i = startRow * width; i < end; i++) {
+					dst[i] = filter.filter(src[i]);
+				}
+				return;
+			}
+
+			for (int i = startRow * width; i < end; i++) {
+				int pixel = src[i];
+				for (int f = 0; f < count; f++) {
+					pixel = fused[f].filter(pixel);
+				}
+				dst[i] = pixel;
+			}
+		}
+	}
+
+	/**
+	 * ӉfQƂtB^KpiK
+	 */
+	private static class KernelStage extends Stage {
+		private final KernelFilter filter;
+
+		KernelStage(KernelFilter filter) {
+			this.filter = filter;
+		}
+
+		@Override
+		void filter(int[] src, int[] dst, int width, int height, int startRow, int endRow) {
+			this.filter.filter(src, dst, width, height, startRow, endRow);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package sample.camera.image;
+
+import java.io.IOException;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * kꂽ摜f[^A\ɕKvȔ͈͂KvȏkŃfR[hNX<br>
+ * Y[͕\͈݂͂̂fR[h邽߁A{ɂ炸fR[hׂ͂̕قڈƂȂB<br>
+ * iXbhZ[tł͂ȂB1Xbhgp邱Ɓj
+ * 
+ * @author k-daigo
+ */
+public class FrameDecoder {
+	private static final String LOG_TAG = "FrameDecoder:";
+
+	private final BitmapFactory.Options boundsOptions = new BitmapFactory.Options();
+	private final BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+	private final Rect region = new Rect();
+
+	/**
+	 * RXgN^
+	 */
+	public FrameDecoder() {
+		this.boundsOptions.inJustDecodeBounds = true;
+	}
+
+	/**
+	 * 摜f[^fR[h
+	 * 
+	 * @param data 摜f[^
+	 * @param length 摜f[^̒
+	 * @param zoom Y[ԁinull̏ꍇ͑Śj
+	 * @param targetWidth \镝
+	 * @param targetHeight \鍂
+	 * @return fR[h摜ifR[hłȂꍇnullj
+	 */
+	public Bitmap decode(byte[] data, int length, ZoomState zoom, int targetWidth, int targetHeight) {
+		// wb_̂݉͂ĉ摜TCY擾
+		this.boundsOptions.outWidth = -1;
+		this.boundsOptions.outHeight = -1;
+		BitmapFactory.decodeByteArray(data, 0, length, this.boundsOptions);
+		int imageWidth = this.boundsOptions.outWidth;
+		int imageHeight = this.boundsOptions.outHeight;
+		if (imageWidth <= 0 || imageHeight <= 0) {
+			return null;
+		}
+
+		if (zoom != null && zoom.isZoomed()) {
+			zoom.getRegion(imageWidth, imageHeight, this.region);
+		} else {
+			this.region.set(0, 0, imageWidth, imageHeight);
+		}
+		this.decodeOptions.inSampleSize = calculateSampleSize(this.region.width(), this.region.height(), targetWidth, targetHeight);
+
+		if (this.region.width() == imageWidth && this.region.height() == imageHeight) {
+			return BitmapFactory.decodeByteArray(data, 0, length, this.decodeOptions);
+		}
+
+		if (Build.VERSION.SDK_INT >= 10) {
+			try {
+				return RegionDecoder.decode(data, length, this.region, this.decodeOptions);
+			} catch (IOException e) {
+				Log.w(LOG_TAG, "region decode failed", e);
+				return null;
+			}
+		}
+
+		// BitmapRegionDecodergpłȂꍇ͏kfR[hĂ؂o
+		Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, length, this.decodeOptions);
+		if (bitmap == null) {
+			return null;
+		}
+		int sample = this.decodeOptions.inSampleSize;
+		int left = Math.min(this.region.left / sample, bitmap.getWidth() - 1);
+		int top = Math.min(this.region.top / sample, bitmap.getHeight() - 1);
+		int width = Math.max(1, Math.min(this.region.width() / sample, bitmap.getWidth() - left));
+		int height = Math.max(1, Math.min(this.region.height() / sample, bitmap.getHeight() - top));
+		Bitmap cropped = Bitmap.createBitmap(bitmap, left, top, width, height);
+
+		// ؂o摜͕ʂBitmapƂȂ邽߁AŜ̉摜͂ɉ
+		if (cropped != bitmap) {
+			bitmap.recycle();
+		}
+		return cropped;
+	}
+
+	/**
+	 * \TCYȂő̏ki2̗ݏjԂ
+	 * 
+	 * @param width ̕
+	 * @param height ̍
+	 * @param targetWidth \镝
+	 * @param targetHeight \鍂
+	 * @return k
+	 */
+	public static int calculateSampleSize(int width, int height, int targetWidth, int targetHeight) {
+		int sample = 1;
+		if (targetWidth <= 0 || targetHeight <= 0) {
+			return sample;
+		}
+		while (width / (sample * 2) >= targetWidth && height / (sample * 2) >= targetHeight) {
+			sample *= 2;
+		}
+		return sample;
+	}
+
+	/**
+	 * BitmapRegionDecoderiAPI Level 10ȍ~jgp鏈<br>
+	 * Â[ŃNXǂݍ܂Ȃ悤ɕĂ
+	 */
+	private static class RegionDecoder {
+		static Bitmap decode(byte[] data, int length, Rect region, BitmapFactory.Options options) throws IOException {
+			BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(data, 0, length, false);
+			try {
+				return decoder.decodeRegion(region, options);
+			} finally {
+				decoder.recycle();
+			}
+		}
+	}
+}
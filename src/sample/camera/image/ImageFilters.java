@@ -0,0 +1,165 @@
+package sample.camera.image;
+
+/**
+ * FilterChainŎgp摜tB^<br>
+ * 掿̈J̕␳pɁAO[XP[ARgXgLAV[vAmCY񋟂B
+ * 
+ * @author k-daigo
+ */
+public class ImageFilters {
+
+	/**
+	 * RXgN^͉B
+	 */
+	protected ImageFilters() {
+	}
+
+	/**
+	 * O[XP[ɕϊtB^Ԃ
+	 * @return tB^
+	 */
+	public static FilterChain.PointFilter grayscale() {
+		return new FilterChain.PointFilter() {
+			public int filter(int argb) {
+				int luma = (((argb >> 16) & 0xff) * 77 + ((argb >> 8) & 0xff) * 150 + (argb & 0xff) * 29) >> 8;
+				return (argb & 0xff000000) | (luma << 16) | (luma << 8) | luma;
+			}
+		};
+	}
+
+	/**
+	 * w肵͈͂̋Px0255ɈL΂tB^Ԃ
+	 * 
+	 * @param low 0ɂl
+	 * @param high 255ɂl
+	 * @return tB^i͈͂͌ォύXłj
+	 */
+	public static Levels contrastStretch(int low, int high) {
+		Levels levels = new Levels();
+		levels.setRange(low, high);
+		return levels;
+	}
+
+	/**
+	 * ֊stB^Ԃ
+	 * 
+	 * @param amount ̓xi0.0ŕωȂB1.0xڈj
+	 * @return tB^
+	 */
+	public static FilterChain.KernelFilter sharpen(float amount) {
+		return new UnsharpKernel((int) (amount * 256));
+	}
+
+	/**
+	 * mCYi3~3ŕjtB^Ԃ
+	 * @return tB^
+	 */
+	public static FilterChain.KernelFilter denoise() {
+		return new UnsharpKernel(-256);
+	}
+
+	/**
+	 * RGB̊e`lɓϊ\KpKϊtB^<br>
+	 * FilterChainŘAꍇ́A1̕ϊ\ɍēKp
+	 */
+	public static class Levels implements FilterChain.PointFilter {
+		private final int[] table = new int[256];
+
+		/**
+		 * ωȂϊ\Ő
+		 */
+		public Levels() {
+			this.reset();
+		}
+
+		/**
+		 * w肵͈͂̋Px0255ɈL΂悤ϊ\ݒ肷
+		 * 
+		 * @param low 0ɂl
+		 * @param high 255ɂl
+		 */
+		public void setRange(int low, int high) {
+			if (low < 0 || high > 255 || low >= high) {
+				throw new IllegalArgumentException("low: " + low + " high: " + high);
+			}
+			for (int i = 0; i < 256; i++) {
+				this.table[i] = Math.max(0, Math.min(255, (i - low) * 255 / (high - low)));
+			}
+		}
+
+		/**
+		 * ωȂϊ\ɖ߂
+		 */
+		void reset() {
+			for (int i = 0; i < 256; i++) {
+				this.table[i] = i;
+			}
+		}
+
+		/**
+		 * ̕ϊ̌ɁAw肵ϊ
+		 */
+		void append(Levels next) {
+			for (int i = 0; i < 256; i++) {
+				this.table[i] = next.table[this.table[i]];
+			}
+		}
+
+		public int filter(int argb) {
+			int[] table = this.table;
+			return (argb & 0xff000000) | (table[(argb >> 16) & 0xff] << 16) | (table[(argb >> 8) & 0xff] << 8) | table[argb & 0xff];
+		}
+	}
+
+	/**
+	 * 3~3̕摜Ƃ̍tB^<br>
+	 *  = f + (f - f) ~ amount / 256<br>
+	 * iamount-256̏ꍇ͕摜̂̂ɂȂj
+	 */
+	private static class UnsharpKernel implements FilterChain.KernelFilter {
+		private final int amount;
+
+		private UnsharpKernel(int amount) {
+			this.amount = amount;
+		}
+
+		public void filter(int[] src, int[] dst, int width, int height, int startRow, int endRow) {
+			for (int y = startRow; y < endRow; y++) {
+				int up = Math.max(y - 1, 0) * width;
+				int row = y * width;
+				int down = Math.min(y + 1, height - 1) * width;
+
+				for (int x = 0; x < width; x++) {
+					int left = Math.max(x - 1, 0);
+					int right = Math.min(x + 1, width - 1);
+					int center = src[row + x];
+
+					// 1 2 1 / 2 4 2 / 1 2 1 ̏d݂ŕ
+					int r = 0;
+					int g = 0;
+					int b = 0;
+					int p;
+					p = src[up + left];    r += (p >> 16) & 0xff;       g += (p >> 8) & 0xff;       b += p & 0xff;
+					p = src[up + x];       r += ((p >> 16) & 0xff) * 2; g += ((p >> 8) & 0xff) * 2; b += (p & 0xff) * 2;
+					p = src[up + right];   r += (p >> 16) & 0xff;       g += (p >> 8) & 0xff;       b += p & 0xff;
+					p = src[row + left];   r += ((p >> 16) & 0xff) * 2; g += ((p >> 8) & 0xff) * 2; b += (p & 0xff) * 2;
+					p = center;            r += ((p >> 16) & 0xff) * 4; g += ((p >> 8) & 0xff) * 4; b += (p & 0xff) * 4;
+					p = src[row + right];  r += ((p >> 16) & 0xff) * 2; g += ((p >> 8) & 0xff) * 2; b += (p & 0xff) * 2;
+					p = src[down + left];  r += (p >> 16) & 0xff;       g += (p >> 8) & 0xff;       b += p & 0xff;
+					p = src[down + x];     r += ((p >> 16) & 0xff) * 2; g += ((p >> 8) & 0xff) * 2; b += (p & 0xff) * 2;
+					p = src[down + right]; r += (p >> 16) & 0xff;       g += (p >> 8) & 0xff;       b += p & 0xff;
+
+					dst[row + x] = (center & 0xff000000)
+							| (this.adjust((center >> 16) & 0xff, r >> 4) << 16)
+							| (this.adjust((center >> 8) & 0xff, g >> 4) << 8)
+							| this.adjust(center & 0xff, b >> 4);
+				}
+			}
+		}
+
+		private int adjust(int value, int blurred) {
+			int result = value + (((value - blurred) * this.amount) >> 8);
+			return result < 0 ? 0 : (result > 255 ? 255 : result);
+		}
+	}
+}
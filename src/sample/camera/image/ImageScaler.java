@@ -0,0 +1,402 @@
+package sample.camera.image;
+
+/**
+ * fzgkNX<br>
+ * ARGB(int[])ARGB565(short[])̉fzΏۂƂA傫ȉ摜͍sPʂŕĕɏB<br>
+ * o͐̔zAWe[u̓TCYςȂėpB<br>
+ * iXbhZ[tł͂ȂB1Xbhgp邱Ɓj
+ * 
+ * @author k-daigo
+ */
+public class ImageScaler {
+	/**
+	 * ԕ@
+	 */
+	public enum Mode {
+		/** ŋߖT */
+		NEAREST,
+		/** oCjA */
+		BILINEAR,
+		/** ωf@ikpj */
+		BOX
+	}
+
+	// 񏈗so͉f臒l
+	private static final int PARALLEL_THRESHOLD = 320 * 240;
+
+	// Œ菬_̃rbg
+	private static final int FIXED_SHIFT = 16;
+	private static final int FIXED_ONE = 1 << FIXED_SHIFT;
+
+	private final int threadCount;
+	private WorkerThreads workers;
+	private final RowTask[] tasks;
+
+	// ėpo͐
+	private int[] output;
+
+	// ėpWe[u
+	private int tableSourceWidth = -1;
+	private int tableDestWidth = -1;
+	private Mode tableMode;
+	private int[] xStart;
+	private int[] xEnd;
+	private int[] xFraction;
+
+	// ̉摜
+	private int[] srcPixels;
+	private int[] dstPixels;
+	private short[] srcShorts;
+	private short[] dstShorts;
+	private int srcWidth;
+	private int srcHeight;
+	private int dstWidth;
+	private int dstHeight;
+	private Mode mode;
+
+	/**
+	 * CPŨRÃXbhŏCX^X𐶐
+	 */
+	public ImageScaler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * w肵XbhŏCX^X𐶐
+	 * 
+	 * @param threadCount 񏈗̃Xbhi1̏ꍇ͌ĂяoXbĥ݂ŏj
+	 */
+	public ImageScaler(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("threadCount: " + threadCount);
+		}
+
+		this.threadCount = threadCount;
+		this.tasks = new RowTask[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			this.tasks[i] = new RowTask();
+		}
+	}
+
+	/**
+	 * ARGB̉fzgk<br>
+	 * ߂l̔z͍ėp邽߁ǍĂяo܂ł̊Ԃ̂ݗL<br>
+	 * iz񒷂͏o̓TCYȏƂȂꍇj
+	 * 
+	 * @param src 摜̉fz
+	 * @param srcWidth 摜̕
+	 * @param srcHeight 摜̍
+	 * @param dstWidth o͂̕
+	 * @param dstHeight o͂̍
+	 * @param mode ԕ@
+	 * @return gkfz
+	 */
+	public int[] scale(int[] src, int srcWidth, int srcHeight, int dstWidth, int dstHeight, Mode mode) {
+		int size = dstWidth * dstHeight;
+		if (this.output == null || this.output.length < size) {
+			this.output = new int[size];
+		}
+
+		this.scale(src, srcWidth, srcHeight, this.output, dstWidth, dstHeight, mode);
+		return this.output;
+	}
+
+	/**
+	 * ARGB̉fzgkAw̔zɏo͂
+	 * 
+	 * @param src 摜̉fz
+	 * @param srcWidth 摜̕
+	 * @param srcHeight 摜̍
+	 * @param dst o͐̉fz
+	 * @param dstWidth o͂̕
+	 * @param dstHeight o͂̍
+	 * @param mode ԕ@
+	 */
+	public void scale(int[] src, int srcWidth, int srcHeight, int[] dst, int dstWidth, int dstHeight, Mode mode) {
+		checkSize(src.length, srcWidth, srcHeight, dst.length, dstWidth, dstHeight);
+
+		this.srcPixels = src;
+		this.dstPixels = dst;
+		this.run(srcWidth, srcHeight, dstWidth, dstHeight, mode);
+		this.srcPixels = null;
+		this.dstPixels = null;
+	}
+
+	/**
+	 * RGB565̉fzŋߖTŊgkAw̔zɏo͂
+	 * 
+	 * @param src 摜̉fz
+	 * @param srcWidth 摜̕
+	 * @param srcHeight 摜̍
+	 * @param dst o͐̉fz
+	 * @param dstWidth o͂̕
+	 * @param dstHeight o͂̍
+	 */
+	public void scale(short[] src, int srcWidth, int srcHeight, short[] dst, int dstWidth, int dstHeight) {
+		checkSize(src.length, srcWidth, srcHeight, dst.length, dstWidth, dstHeight);
+
+		this.srcShorts = src;
+		this.dstShorts = dst;
+		this.run(srcWidth, srcHeight, dstWidth, dstHeight, Mode.NEAREST);
+		this.srcShorts = null;
+		this.dstShorts = null;
+	}
+
+	/**
+	 * 񏈗p̃Xbh~
+	 */
+	public void shutdown() {
+		if (this.workers != null) {
+			this.workers.shutdown();
+			this.workers = null;
+		}
+	}
+
+	/**
+	 * 摜TCY؂
+	 */
+	private static void checkSize(int srcLength, int srcWidth, int srcHeight, int dstLength, int dstWidth, int dstHeight) {
+		if (srcWidth <= 0 || srcHeight <= 0 || dstWidth <= 0 || dstHeight <= 0) {
+			throw new IllegalArgumentException("invalid size: " + srcWidth + "x" + srcHeight + " -> " + dstWidth + "x" + dstHeight);
+		}
+		if (srcLength < srcWidth * srcHeight || dstLength < dstWidth * dstHeight) {
+			throw new IllegalArgumentException("buffer too small");
+		}
+	}
+
+	/**
+	 * s𕪊Ċgks
+	 */
+	private void run(int srcWidth, int srcHeight, int dstWidth, int dstHeight, Mode mode) {
+		this.srcWidth = srcWidth;
+		this.srcHeight = srcHeight;
+		this.dstWidth = dstWidth;
+		this.dstHeight = dstHeight;
+		this.mode = mode;
+		this.prepareTable();
+
+		int bands = Math.min(this.threadCount, dstHeight);
+		if (bands <= 1 || dstWidth * dstHeight < PARALLEL_THRESHOLD) {
+			this.scaleRows(0, dstHeight);
+			return;
+		}
+
+		if (this.workers == null) {
+			this.workers = new WorkerThreads("ImageScaler", this.threadCount - 1);
+		}
+
+		// Ō̑т͌ĂяoXbhŏifĂ̑тI܂ł͖߂Ȃj
+		int rowsPerBand = (dstHeight + bands - 1) / bands;
+		for (int i = 0; i < bands - 1; i++) {
+			RowTask task = this.tasks[i];
+			task.startRow = i * rowsPerBand;
+			task.endRow = Math.min(dstHeight, task.startRow + rowsPerBand);
+		}
+		this.workers.start(this.tasks, bands - 1);
+		try {
+			this.scaleRows((bands - 1) * rowsPerBand, dstHeight);
+		} finally {
+			this.workers.await();
+		}
+	}
+
+	/**
+	 * ̍We[uiTCYAԕ@ς̂ݍČvZj
+	 */
+	private void prepareTable() {
+		if (this.tableSourceWidth == this.srcWidth && this.tableDestWidth == this.dstWidth && this.tableMode == this.mode) {
+			return;
+		}
+
+		if (this.xStart == null || this.xStart.length < this.dstWidth) {
+			this.xStart = new int[this.dstWidth];
+			this.xEnd = new int[this.dstWidth];
+			this.xFraction = new int[this.dstWidth];
+		}
+
+		for (int x = 0; x < this.dstWidth; x++) {
+			switch (this.mode) {
+			case BILINEAR:
+				int fixed = sourceCoordinate(x, this.srcWidth, this.dstWidth);
+				int index = fixed >> FIXED_SHIFT;
+				this.xStart[x] = index;
+				this.xEnd[x] = Math.min(index + 1, this.srcWidth - 1);
+				this.xFraction[x] = (fixed & (FIXED_ONE - 1)) >> 8;
+				break;
+			case BOX:
+				int start = (int) ((long) x * this.srcWidth / this.dstWidth);
+				int end = (int) ((long) (x + 1) * this.srcWidth / this.dstWidth);
+				this.xStart[x] = start;
+				this.xEnd[x] = Math.max(end, start + 1);
+				break;
+			default:
+				this.xStart[x] = (int) ((long) x * this.srcWidth / this.dstWidth);
+				break;
+			}
+		}
+
+		this.tableSourceWidth = this.srcWidth;
+		this.tableDestWidth = this.dstWidth;
+		this.tableMode = this.mode;
+	}
+
+	/**
+	 * o͍WɑΉ錳摜̍WŒ菬_ŕԂifS킹j
+	 */
+	private static int sourceCoordinate(int dst, int srcSize, int dstSize) {
+		long fixed = (((long) (2 * dst + 1) * srcSize << FIXED_SHIFT) / (2L * dstSize)) - (FIXED_ONE >> 1);
+		if (fixed < 0) {
+			return 0;
+		}
+		return (int) Math.min(fixed, (long) (srcSize - 1) << FIXED_SHIFT);
+	}
+
+	/**
+	 * w͈͂̍s
+	 * 
+	 * @param startRow Jns
+	 * @param endRow Isi܂܂Ȃj
+	 */
+	private void scaleRows(int startRow, int endRow) {
+		if (this.srcShorts != null) {
+			this.nearestShort(startRow, endRow);
+			return;
+		}
+
+		switch (this.mode) {
+		case BILINEAR:
+			this.bilinear(startRow, endRow);
+			break;
+		case BOX:
+			this.box(startRow, endRow);
+			break;
+		default:
+			this.nearest(startRow, endRow);
+			break;
+		}
+	}
+
+	/**
+	 * ŋߖTiARGBj
+	 */
+	private void nearest(int startRow, int endRow) {
+		int[] src = this.srcPixels;
+		int[] dst = this.dstPixels;
+		int[] xs = this.xStart;
+		for (int y = startRow; y < endRow; y++) {
+			int srcRow = (int) ((long) y * this.srcHeight / this.dstHeight) * this.srcWidth;
+			int dstRow = y * this.dstWidth;
+			for (int x = 0; x < this.dstWidth; x++) {
+				dst[dstRow + x] = src[srcRow + xs[x]];
+			}
+		}
+	}
+
+	/**
+	 * ŋߖTiRGB565j
+	 */
+	private void nearestShort(int startRow, int endRow) {
+		short[] src = this.srcShorts;
+		short[] dst = this.dstShorts;
+		int[] xs = this.xStart;
+		for (int y = startRow; y < endRow; y++) {
+			int srcRow = (int) ((long) y * this.srcHeight / this.dstHeight) * this.srcWidth;
+			int dstRow = y * this.dstWidth;
+			for (int x = 0; x < this.dstWidth; x++) {
+				dst[dstRow + x] = src[srcRow + xs[x]];
+			}
+		}
+	}
+
+	/**
+	 * oCjAiARGBj<br>
+	 * d݂8biťŒ菬_ŌvZ
+	 */
+	private void bilinear(int startRow, int endRow) {
+		int[] src = this.srcPixels;
+		int[] dst = this.dstPixels;
+		int[] x0s = this.xStart;
+		int[] x1s = this.xEnd;
+		int[] fxs = this.xFraction;
+		for (int y = startRow; y < endRow; y++) {
+			int fixed = sourceCoordinate(y, this.srcHeight, this.dstHeight);
+			int y0 = fixed >> FIXED_SHIFT;
+			int y1 = Math.min(y0 + 1, this.srcHeight - 1);
+			int fy = (fixed & (FIXED_ONE - 1)) >> 8;
+			int row0 = y0 * this.srcWidth;
+			int row1 = y1 * this.srcWidth;
+			int dstRow = y * this.dstWidth;
+
+			for (int x = 0; x < this.dstWidth; x++) {
+				int fx = fxs[x];
+				int p00 = src[row0 + x0s[x]];
+				int p01 = src[row0 + x1s[x]];
+				int p10 = src[row1 + x0s[x]];
+				int p11 = src[row1 + x1s[x]];
+
+				int w00 = (256 - fx) * (256 - fy);
+				int w01 = fx * (256 - fy);
+				int w10 = (256 - fx) * fy;
+				int w11 = fx * fy;
+
+				int pixel = 0;
+				for (int shift = 0; shift < 32; shift += 8) {
+					int c = ((p00 >>> shift) & 0xff) * w00 + ((p01 >>> shift) & 0xff) * w01
+							+ ((p10 >>> shift) & 0xff) * w10 + ((p11 >>> shift) & 0xff) * w11;
+					pixel |= ((c + 32768) >>> 16) << shift;
+				}
+				dst[dstRow + x] = pixel;
+			}
+		}
+	}
+
+	/**
+	 * ωf@iARGBj
+	 */
+	private void box(int startRow, int endRow) {
+		int[] src = this.srcPixels;
+		int[] dst = this.dstPixels;
+		int[] x0s = this.xStart;
+		int[] x1s = this.xEnd;
+		for (int y = startRow; y < endRow; y++) {
+			int y0 = (int) ((long) y * this.srcHeight / this.dstHeight);
+			int y1 = Math.max((int) ((long) (y + 1) * this.srcHeight / this.dstHeight), y0 + 1);
+			int dstRow = y * this.dstWidth;
+
+			for (int x = 0; x < this.dstWidth; x++) {
+				int x0 = x0s[x];
+				int x1 = x1s[x];
+				int a = 0;
+				int r = 0;
+				int g = 0;
+				int b = 0;
+				for (int sy = y0; sy < y1; sy++) {
+					int row = sy * this.srcWidth;
+					for (int sx = x0; sx < x1; sx++) {
+						int p = src[row + sx];
+						a += p >>> 24;
+						r += (p >> 16) & 0xff;
+						g += (p >> 8) & 0xff;
+						b += p & 0xff;
+					}
+				}
+
+				int count = (y1 - y0) * (x1 - x0);
+				int half = count >> 1;
+				dst[dstRow + x] = ((a + half) / count) << 24 | ((r + half) / count) << 16 | ((g + half) / count) << 8 | ((b + half) / count);
+			}
+		}
+	}
+
+	/**
+	 * 񏈗̒PʁiCX^X͍ėpj
+	 */
+	private class RowTask implements Runnable {
+		private int startRow;
+		private int endRow;
+
+		public void run() {
+			scaleRows(this.startRow, this.endRow);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package sample.camera.image;
+
+/**
+ * ĂяoXbhƕSďs풓XbhQ<br>
+ * `̓xɃIuWFNg𐶐Ȃ悤AXbhƓp̃j^g
+ * iExecutorServiceACountDownLatch͎s̓xɃIuWFNg𐶐jB<br>
+ * Xbh͏̎sɊJnB<br>
+ * ŔO̓XbhŕߑAŏ1await瓊B<br>
+ * istartAawaitAshutdown1XbhĂяoƁj
+ * 
+ * @author k-daigo
+ */
+class WorkerThreads {
+	private final String name;
+	private final Thread[] threads;
+
+	// s̏iroundɍXVj
+	private Runnable[] tasks;
+	private int taskCount;
+	private int round = 0;
+	private int remaining = 0;
+	private boolean shutdown = false;
+
+	// sroundōŏɔO
+	private Throwable failure;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param name Xbh
+	 * @param threadCount Xbh
+	 */
+	WorkerThreads(String name, int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("threadCount: " + threadCount);
+		}
+		this.name = name;
+		this.threads = new Thread[threadCount];
+	}
+
+	/**
+	 * JniiԖڂ̏iԖڂ̃XbhŎsBIawaitő҂j
+	 * 
+	 * @param tasks 
+	 * @param count s鏈̐iXbhȉj
+	 */
+	synchronized void start(Runnable[] tasks, int count) {
+		if (count > this.threads.length) {
+			throw new IllegalArgumentException("count: " + count);
+		}
+		if (this.shutdown) {
+			throw new IllegalStateException("shutdown");
+		}
+		if (this.threads[0] == null) {
+			for (int i = 0; i < this.threads.length; i++) {
+				final int index = i;
+				Thread thread = new Thread(new Runnable() {
+					public void run() {
+						work(index);
+					}
+				}, this.name);
+				thread.setDaemon(true);
+				thread.start();
+				this.threads[i] = thread;
+			}
+		}
+
+		this.tasks = tasks;
+		this.taskCount = count;
+		this.remaining = count;
+		this.round++;
+		notifyAll();
+	}
+
+	/**
+	 * JnSďI܂ő҂<br>
+	 * ̔zĂяoėpł悤AfĂ҂AfԂ͖߂B<br>
+	 * ŗOĂꍇ́ASĂ̏Iɍŏ̗O𓊂B
+	 */
+	synchronized void await() {
+		boolean interrupted = false;
+		while (this.remaining > 0) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		Throwable failure = this.failure;
+		if (failure != null) {
+			this.failure = null;
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			throw new RuntimeException(failure);
+		}
+	}
+
+	/**
+	 * XbhIiłȂƂɌĂяoƁj
+	 */
+	synchronized void shutdown() {
+		this.shutdown = true;
+		notifyAll();
+	}
+
+	/**
+	 * Xbh̏iroundiޓxɁA̔ԍ̏sj<br>
+	 * XbhIƈȍ~await߂ȂȂ邽߁AshutdownȊOł͏IȂB
+	 */
+	private void work(int index) {
+		int seen = 0;
+		while (true) {
+			Runnable task;
+			synchronized (this) {
+				while (this.round == seen && !this.shutdown) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// Ishutdownł̂ݍs
+					}
+				}
+				if (this.shutdown) {
+					return;
+				}
+				seen = this.round;
+				if (index >= this.taskCount) {
+					continue;
+				}
+				task = this.tasks[index];
+			}
+
+			Throwable thrown = null;
+			try {
+				task.run();
+			} catch (Throwable t) {
+				thrown = t;
+			}
+			synchronized (this) {
+				if (thrown != null && this.failure == null) {
+					this.failure = thrown;
+				}
+				if (--this.remaining == 0) {
+					notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package sample.camera.image;
+
+import android.graphics.Rect;
+
+/**
+ * fW^Y[̏ԂێNX<br>
+ * \S͉摜TCYɑ΂䗦i0.01.0jŕێ
+ * 
+ * @author k-daigo
+ */
+public class ZoomState {
+	/** ő{ */
+	public static final float MAX_ZOOM = 8.0f;
+
+	private float zoom = 1.0f;
+	private float centerX = 0.5f;
+	private float centerY = 0.5f;
+
+	/**
+	 * {Ԃ
+	 * @return {i1.0ȏj
+	 */
+	public synchronized float getZoom() {
+		return this.zoom;
+	}
+
+	/**
+	 * Y[Ԃ
+	 * @return	true	: Y[
+	 * 			false	: {
+	 */
+	public synchronized boolean isZoomed() {
+		return this.zoom > 1.0f;
+	}
+
+	/**
+	 * wʒu𒆐Sɔ{ύX
+	 * 
+	 * @param factor {̕ωʁi1.0傫ꍇ͊gj
+	 * @param focusX SƂʒui\ɑ΂䗦j
+	 * @param focusY SƂʒui\ɑ΂䗦j
+	 */
+	public synchronized void zoomBy(float factor, float focusX, float focusY) {
+		float newZoom = Math.max(1.0f, Math.min(MAX_ZOOM, this.zoom * factor));
+
+		// wʒủ摜̍WςȂ悤ɒSړ
+		float pointX = this.centerX + (focusX - 0.5f) / this.zoom;
+		float pointY = this.centerY + (focusY - 0.5f) / this.zoom;
+		this.centerX = pointX - (focusX - 0.5f) / newZoom;
+		this.centerY = pointY - (focusY - 0.5f) / newZoom;
+		this.zoom = newZoom;
+		this.clamp();
+	}
+
+	/**
+	 * \͈͂ړ
+	 * 
+	 * @param dx ړʁi\ɑ΂䗦j
+	 * @param dy ړʁi\ɑ΂䗦j
+	 */
+	public synchronized void panBy(float dx, float dy) {
+		this.centerX += dx / this.zoom;
+		this.centerY += dy / this.zoom;
+		this.clamp();
+	}
+
+	/**
+	 * {ɖ߂
+	 */
+	public synchronized void reset() {
+		this.zoom = 1.0f;
+		this.centerX = 0.5f;
+		this.centerY = 0.5f;
+	}
+
+	/**
+	 * \͈͂摜̍WŕԂ
+	 * 
+	 * @param imageWidth 摜̕
+	 * @param imageHeight 摜̍
+	 * @param region \͈͂̊i[
+	 */
+	public synchronized void getRegion(int imageWidth, int imageHeight, Rect region) {
+		int regionWidth = Math.max(1, Math.round(imageWidth / this.zoom));
+		int regionHeight = Math.max(1, Math.round(imageHeight / this.zoom));
+		int left = Math.round(this.centerX * imageWidth - regionWidth / 2.0f);
+		int top = Math.round(this.centerY * imageHeight - regionHeight / 2.0f);
+		left = Math.max(0, Math.min(imageWidth - regionWidth, left));
+		top = Math.max(0, Math.min(imageHeight - regionHeight, top));
+		region.set(left, top, left + regionWidth, top + regionHeight);
+	}
+
+	/**
+	 * \͈͂摜͂ݏoȂ悤ɒS␳
+	 */
+	private void clamp() {
+		float half = 0.5f / this.zoom;
+		this.centerX = Math.max(half, Math.min(1.0f - half, this.centerX));
+		this.centerY = Math.max(half, Math.min(1.0f - half, this.centerY));
+	}
+}
@@ -0,0 +1,369 @@
+package sample.camera.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import sample.camera.utils.JpegUtil;
+
+/**
+ * MJPEG摜̂܂Motion JPEGAVIt@CɋL^NX<br>
+ * ݂̓obt@ɂ܂Ƃ߂ĂFileChannelōsAwb_ƍ(idx1)͏IɏށB<br>
+ * AVĨTCYAItZbg32bit̂߁At@CMAX_FILE_SIZEɒBOɎ̃t@CiO_001.avijɐ؂ւB<br>
+ * iXbhZ[tł͂ȂB1Xbhgp邱Ɓj
+ * 
+ * @author k-daigo
+ */
+public class AviRecorder {
+	// ܂Ƃ߂ďރTCY
+	private static final int BATCH_SIZE = 1024 * 1024;
+
+	// wb_̃TCYiRIFF + LIST hdrl + LIST movi ̃wb_j
+	private static final int HEADER_SIZE = 12 + 200 + 12;
+
+	// AVIF_HASINDEX
+	private static final int AVIF_HASINDEX = 0x10;
+
+	// AVIIF_KEYFRAME
+	private static final int AVIIF_KEYFRAME = 0x10;
+
+	/** 1t@C̃TCY̏iOɎ̃t@Cɐ؂ւj */
+	public static final long MAX_FILE_SIZE = 1024L * 1024 * 1024;
+
+	private final File output;
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private int fileCount = 0;
+	private int totalFrameCount = 0;
+	private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final int defaultFrameRate;
+	private final int[] size = new int[2];
+
+	// ݒ̃t@C̍ie摜̃ItZbgAj
+	private int[] chunkOffsets = new int[1024];
+	private int[] chunkLengths = new int[1024];
+	private int frameCount = 0;
+
+	// ݍς݂movĩTCYi'movi'܂ށj
+	private long moviSize = 4;
+	private int maxChunkLength = 0;
+	private int width = 0;
+	private int height = 0;
+	private long firstTime = -1;
+	private long lastTime = -1;
+	private boolean closed = false;
+
+	/**
+	 * L^Jn
+	 * 
+	 * @param output o̓t@C
+	 * @param defaultFrameRate 摜1ȉ̏ꍇɎgpt[[g
+	 * @throws IOException
+	 */
+	public AviRecorder(File output, int defaultFrameRate) throws IOException {
+		this.output = output;
+		this.defaultFrameRate = defaultFrameRate;
+		this.openFile(output);
+	}
+
+	/**
+	 * 摜ǉ
+	 * 
+	 * @param data JPEGf[^
+	 * @param length JPEGf[^̒
+	 * @param time M
+	 * @throws IOException
+	 */
+	public void addFrame(byte[] data, int length, long time) throws IOException {
+		if (this.closed) {
+			throw new IOException("closed");
+		}
+
+		// ɒBꍇ́Aݒ̃t@CĎ̃t@Cɐ؂ւ
+		int padding = length & 1;
+		long nextSize = HEADER_SIZE + this.moviSize + 8 + length + padding + 8 + (long) (this.frameCount + 1) * 16;
+		if (this.frameCount > 0 && nextSize > MAX_FILE_SIZE) {
+			this.finishFile();
+			this.openFile(segmentFile(this.output, this.fileCount));
+		}
+
+		if (this.width == 0 && JpegUtil.readSize(data, 0, length, this.size)) {
+			this.width = this.size[0];
+			this.height = this.size[1];
+		}
+		if (this.firstTime < 0) {
+			this.firstTime = time;
+		}
+		this.lastTime = time;
+
+		this.addIndex((int) this.moviSize, length);
+
+		if (this.batch.remaining() < 8 + length + padding) {
+			this.flush();
+		}
+
+		this.putFourCC(this.batch, "00dc");
+		this.batch.putInt(length);
+		if (this.batch.remaining() >= length + padding) {
+			this.batch.put(data, 0, length);
+		} else {
+			// obt@傫摜͒ڏ
+			this.flush();
+			this.write(ByteBuffer.wrap(data, 0, length));
+		}
+		if (padding != 0) {
+			this.batch.put((byte) 0);
+		}
+
+		this.moviSize += 8 + length + padding;
+		this.maxChunkLength = Math.max(this.maxChunkLength, length);
+	}
+
+	/**
+	 * L^摜̐Ԃ
+	 * @return 摜̐iSẴt@C̍vj
+	 */
+	public int getFrameCount() {
+		return this.totalFrameCount;
+	}
+
+	/**
+	 * L^t@C̐Ԃ
+	 * @return t@C̐iݒ̂̂܂ށj
+	 */
+	public int getFileCount() {
+		return this.fileCount;
+	}
+
+	/**
+	 * w肵ԍ̃t@CԂi0͎w肳ꂽo̓t@CAȍ~͖O_001.avij
+	 * 
+	 * @param output o̓t@C
+	 * @param index ԍ
+	 * @return t@C
+	 */
+	public static File segmentFile(File output, int index) {
+		if (index == 0) {
+			return output;
+		}
+
+		String name = output.getName();
+		int dot = name.lastIndexOf('.');
+		String base = dot < 0 ? name : name.substring(0, dot);
+		String extension = dot < 0 ? "" : name.substring(dot);
+		String number = String.valueOf(index);
+		while (number.length() < 3) {
+			number = "0" + number;
+		}
+		return new File(output.getParentFile(), base + "_" + number + extension);
+	}
+
+	/**
+	 * ƃwb_݁At@C
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.finishFile();
+	}
+
+	/**
+	 * t@CJAݒ̃t@C̏Ԃ
+	 * 
+	 * @param target o̓t@C
+	 * @throws IOException
+	 */
+	private void openFile(File target) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(target, "rw");
+		try {
+			file.setLength(0);
+
+			// wb_͏Iɏނߗ̈悾mۂ
+			file.getChannel().position(HEADER_SIZE);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+
+		this.file = file;
+		this.channel = file.getChannel();
+		this.fileCount++;
+		this.frameCount = 0;
+		this.moviSize = 4;
+		this.maxChunkLength = 0;
+		this.firstTime = -1;
+		this.lastTime = -1;
+	}
+
+	/**
+	 * ݒ̃t@C̍ƃwb_݁A
+	 * 
+	 * @throws IOException
+	 */
+	private void finishFile() throws IOException {
+		try {
+			// iwb_Ƀobt@ɓArŏłȂ悤ɂj
+			this.flush();
+			this.putFourCC(this.batch, "idx1");
+			this.batch.putInt(this.frameCount * 16);
+			for (int i = 0; i < this.frameCount; i++) {
+				if (this.batch.remaining() < 16) {
+					this.flush();
+				}
+				this.putFourCC(this.batch, "00dc");
+				this.batch.putInt(AVIIF_KEYFRAME);
+				this.batch.putInt(this.chunkOffsets[i]);
+				this.batch.putInt(this.chunkLengths[i]);
+			}
+			this.flush();
+
+			long fileSize = this.channel.position();
+
+			// wb_
+			this.writeHeader(fileSize);
+		} finally {
+			this.file.close();
+		}
+	}
+
+	/**
+	 * wb_擪ɏ
+	 * 
+	 * @param fileSize t@CTCY
+	 * @throws IOException
+	 */
+	private void writeHeader(long fileSize) throws IOException {
+		int microSecPerFrame = 1000000 / Math.max(1, this.defaultFrameRate);
+		if (this.frameCount > 1 && this.lastTime > this.firstTime) {
+			microSecPerFrame = (int) ((this.lastTime - this.firstTime) * 1000 / (this.frameCount - 1));
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		this.putFourCC(header, "RIFF");
+		header.putInt((int) (fileSize - 8));
+		this.putFourCC(header, "AVI ");
+
+		this.putFourCC(header, "LIST");
+		header.putInt(200 - 8);
+		this.putFourCC(header, "hdrl");
+
+		// avih
+		this.putFourCC(header, "avih");
+		header.putInt(56);
+		header.putInt(microSecPerFrame);
+		header.putInt((int) Math.min(Integer.MAX_VALUE, (long) this.maxChunkLength * 1000000 / Math.max(1, microSecPerFrame)));
+		header.putInt(0);
+		header.putInt(AVIF_HASINDEX);
+		header.putInt(this.frameCount);
+		header.putInt(0);
+		header.putInt(1);
+		header.putInt(this.maxChunkLength + 8);
+		header.putInt(this.width);
+		header.putInt(this.height);
+		header.putInt(0);
+		header.putInt(0);
+		header.putInt(0);
+		header.putInt(0);
+
+		this.putFourCC(header, "LIST");
+		header.putInt(4 + 64 + 48);
+		this.putFourCC(header, "strl");
+
+		// strh
+		this.putFourCC(header, "strh");
+		header.putInt(56);
+		this.putFourCC(header, "vids");
+		this.putFourCC(header, "MJPG");
+		header.putInt(0);
+		header.putShort((short) 0);
+		header.putShort((short) 0);
+		header.putInt(0);
+		header.putInt(microSecPerFrame);
+		header.putInt(1000000);
+		header.putInt(0);
+		header.putInt(this.frameCount);
+		header.putInt(this.maxChunkLength + 8);
+		header.putInt(-1);
+		header.putInt(0);
+		header.putShort((short) 0);
+		header.putShort((short) 0);
+		header.putShort((short) this.width);
+		header.putShort((short) this.height);
+
+		// strfiBITMAPINFOHEADERj
+		this.putFourCC(header, "strf");
+		header.putInt(40);
+		header.putInt(40);
+		header.putInt(this.width);
+		header.putInt(this.height);
+		header.putShort((short) 1);
+		header.putShort((short) 24);
+		this.putFourCC(header, "MJPG");
+		header.putInt(this.width * this.height * 3);
+		header.putInt(0);
+		header.putInt(0);
+		header.putInt(0);
+		header.putInt(0);
+
+		// movi
+		this.putFourCC(header, "LIST");
+		header.putInt((int) this.moviSize);
+		this.putFourCC(header, "movi");
+
+		header.flip();
+		this.channel.position(0);
+		this.write(header);
+	}
+
+	/**
+	 * ɒǉ
+	 */
+	private void addIndex(int offset, int length) {
+		if (this.frameCount == this.chunkOffsets.length) {
+			int[] newOffsets = new int[this.frameCount * 2];
+			int[] newLengths = new int[this.frameCount * 2];
+			System.arraycopy(this.chunkOffsets, 0, newOffsets, 0, this.frameCount);
+			System.arraycopy(this.chunkLengths, 0, newLengths, 0, this.frameCount);
+			this.chunkOffsets = newOffsets;
+			this.chunkLengths = newLengths;
+		}
+		this.chunkOffsets[this.frameCount] = offset;
+		this.chunkLengths[this.frameCount] = length;
+		this.frameCount++;
+		this.totalFrameCount++;
+	}
+
+	/**
+	 * obt@̓e
+	 */
+	private void flush() throws IOException {
+		this.batch.flip();
+		this.write(this.batch);
+		this.batch.clear();
+	}
+
+	/**
+	 * Sďނ܂ŏ
+	 */
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer);
+		}
+	}
+
+	/**
+	 * FourCC
+	 */
+	private void putFourCC(ByteBuffer buffer, String fourCC) {
+		for (int i = 0; i < 4; i++) {
+			buffer.put((byte) fourCC.charAt(i));
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package sample.camera.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.util.Log;
+
+/**
+ * M摜fBXNɋL^^CVtgp̃obt@<br>
+ * OɊmۂZOgt@C}bvAOɎgpB<br>
+ * 摜̈ʒu͓̍ŊǗA񕪒TŌB<br>
+ * ǋL͌ĂяoXbhubNA݂͐pXbhōsB
+ * 
+ * @author k-daigo
+ */
+public class DvrBuffer {
+	private static final String LOG_TAG = "DvrBuffer:";
+
+	// ݑ҂ɂł摜̐
+	private static final int PENDING_SLOTS = 8;
+
+	// ̐߂ۂ1̍ŏTCY
+	private static final int MIN_FRAME_BYTES = 2048;
+
+	private final RandomAccessFile[] files;
+	private final MappedByteBuffer[] segments;
+	private final int segmentSize;
+
+	// iV[PXԍ % ̈ʒuɊi[j
+	private final long[] indexTimes;
+	private final int[] indexSegments;
+	private final int[] indexOffsets;
+	private final int[] indexLengths;
+	private long firstSequence = 0;
+	private long nextSequence = 0;
+
+	// ݈̏ʒu
+	private int writeSegment = 0;
+	private int writePosition = 0;
+
+	// ݑ҂̉摜iz͍ėpj
+	private final BlockingQueue<Slot> freeSlots = new ArrayBlockingQueue<Slot>(PENDING_SLOTS);
+	private final BlockingQueue<Slot> pendingSlots = new ArrayBlockingQueue<Slot>(PENDING_SLOTS);
+	private final Thread writer;
+	private final AtomicInteger droppedCount = new AtomicInteger();
+
+	/**
+	 * ZOgt@CmۂAL^Jn
+	 * 
+	 * @param directory ZOgt@C쐬fBNg
+	 * @param segmentCount ZOg
+	 * @param segmentSize 1ZOg̃TCYibytej
+	 * @throws IOException
+	 */
+	public DvrBuffer(File directory, int segmentCount, int segmentSize) throws IOException {
+		if (segmentCount < 2 || segmentSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+
+		this.segmentSize = segmentSize;
+		this.files = new RandomAccessFile[segmentCount];
+		this.segments = new MappedByteBuffer[segmentCount];
+		try {
+			for (int i = 0; i < segmentCount; i++) {
+				this.files[i] = new RandomAccessFile(new File(directory, "dvr_" + i + ".seg"), "rw");
+				this.files[i].setLength(segmentSize);
+				this.segments[i] = this.files[i].getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+			}
+		} catch (IOException e) {
+			this.closeFiles();
+			throw e;
+		}
+
+		int indexCapacity = (int) Math.max(16, (long) segmentCount * segmentSize / MIN_FRAME_BYTES);
+		this.indexTimes = new long[indexCapacity];
+		this.indexSegments = new int[indexCapacity];
+		this.indexOffsets = new int[indexCapacity];
+		this.indexLengths = new int[indexCapacity];
+
+		for (int i = 0; i < PENDING_SLOTS; i++) {
+			this.freeSlots.add(new Slot());
+		}
+
+		this.writer = new Thread(new Writer(), "DvrBuffer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * 摜ǋLi݂͑҂Ȃj
+	 * 
+	 * @param data 摜f[^
+	 * @param length 摜f[^̒
+	 * @param time M
+	 * @return	true	: 󂯕t
+	 * 			false	: ݂ǂȂߔj
+	 */
+	public boolean append(byte[] data, int length, long time) {
+		Slot slot = this.freeSlots.poll();
+		if (slot == null) {
+			this.droppedCount.incrementAndGet();
+			return false;
+		}
+
+		if (slot.data.length < length) {
+			slot.data = new byte[length];
+		}
+		System.arraycopy(data, 0, slot.data, 0, length);
+		slot.length = length;
+		slot.time = time;
+		this.pendingSlots.add(slot);
+		return true;
+	}
+
+	/**
+	 * wȍ~̍ŏ̉摜̃V[PXԍԂ
+	 * 
+	 * @param time 
+	 * @return V[PXԍiYȂ̏ꍇ-1j
+	 */
+	public synchronized long findSequence(long time) {
+		long low = this.firstSequence;
+		long high = this.nextSequence;
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (this.indexTimes[this.indexOf(mid)] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low < this.nextSequence ? low : -1;
+	}
+
+	/**
+	 * ێĂłÂ摜̃V[PXԍԂ
+	 * @return V[PXԍ
+	 */
+	public synchronized long getFirstSequence() {
+		return this.firstSequence;
+	}
+
+	/**
+	 * ɋL^摜̃V[PXԍԂ
+	 * @return V[PXԍ
+	 */
+	public synchronized long getNextSequence() {
+		return this.nextSequence;
+	}
+
+	/**
+	 * 摜̎MԂ
+	 * 
+	 * @param sequence V[PXԍ
+	 * @return MiێĂȂꍇ-1j
+	 */
+	public synchronized long getTime(long sequence) {
+		if (!this.contains(sequence)) {
+			return -1;
+		}
+		return this.indexTimes[this.indexOf(sequence)];
+	}
+
+	/**
+	 * 摜f[^̒Ԃ
+	 * 
+	 * @param sequence V[PXԍ
+	 * @return iێĂȂꍇ-1j
+	 */
+	public synchronized int getLength(long sequence) {
+		if (!this.contains(sequence)) {
+			return -1;
+		}
+		return this.indexLengths[this.indexOf(sequence)];
+	}
+
+	/**
+	 * 摜f[^ǂݍ
+	 * 
+	 * @param sequence V[PXԍ
+	 * @param buffer ǂݍݐigetLength()ȏ̒Kvj
+	 * @return ǂݍ񂾒iێĂȂꍇ-1j
+	 */
+	public synchronized int read(long sequence, byte[] buffer) {
+		if (!this.contains(sequence)) {
+			return -1;
+		}
+
+		int index = this.indexOf(sequence);
+		int length = this.indexLengths[index];
+		MappedByteBuffer segment = this.segments[this.indexSegments[index]];
+		segment.position(this.indexOffsets[index]);
+		segment.get(buffer, 0, length);
+		return length;
+	}
+
+	/**
+	 * ݂ǂjԂ
+	 * @return 
+	 */
+	public int getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * L^IAt@C
+	 */
+	public void close() {
+		this.writer.interrupt();
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			this.closeFiles();
+		}
+	}
+
+	/**
+	 * ZOgt@C
+	 */
+	private void closeFiles() {
+		for (RandomAccessFile file : this.files) {
+			if (file == null) {
+				continue;
+			}
+			try {
+				file.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * ێĂ摜Ԃ
+	 */
+	private boolean contains(long sequence) {
+		return sequence >= this.firstSequence && sequence < this.nextSequence;
+	}
+
+	/**
+	 * V[PXԍɑΉ̈ʒuԂ
+	 */
+	private int indexOf(long sequence) {
+		return (int) (sequence % this.indexTimes.length);
+	}
+
+	/**
+	 * 摜ZOgɏ݁Aɒǉ
+	 * 
+	 * @param slot މ摜
+	 */
+	private synchronized void write(Slot slot) {
+		if (slot.length > this.segmentSize) {
+			this.droppedCount.incrementAndGet();
+			return;
+		}
+
+		// tsꍇ͍̏ۂߋL^Ȃ
+		if (this.nextSequence > this.firstSequence && slot.time < this.indexTimes[this.indexOf(this.nextSequence - 1)]) {
+			Log.w(LOG_TAG, "time went backwards, frame dropped");
+			this.droppedCount.incrementAndGet();
+			return;
+		}
+
+		// ZOgɎ܂Ȃꍇ͎̃ZOgɈڂÃZOǧÂ摜j
+		if (this.writePosition + slot.length > this.segmentSize) {
+			this.writeSegment = (this.writeSegment + 1) % this.segments.length;
+			this.writePosition = 0;
+			while (this.firstSequence < this.nextSequence && this.indexSegments[this.indexOf(this.firstSequence)] == this.writeSegment) {
+				this.firstSequence++;
+			}
+		}
+
+		// t̏ꍇ͍łÂ̂j
+		if (this.nextSequence - this.firstSequence == this.indexTimes.length) {
+			this.firstSequence++;
+		}
+
+		MappedByteBuffer segment = this.segments[this.writeSegment];
+		segment.position(this.writePosition);
+		segment.put(slot.data, 0, slot.length);
+
+		int index = this.indexOf(this.nextSequence);
+		this.indexTimes[index] = slot.time;
+		this.indexSegments[index] = this.writeSegment;
+		this.indexOffsets[index] = this.writePosition;
+		this.indexLengths[index] = slot.length;
+		this.nextSequence++;
+		this.writePosition += slot.length;
+	}
+
+	/**
+	 * ݑ҂̉摜
+	 */
+	private static class Slot {
+		private byte[] data = new byte[64 * 1024];
+		private int length;
+		private long time;
+	}
+
+	/**
+	 * ݃Xbh
+	 */
+	private class Writer implements Runnable {
+		public void run() {
+			while (true) {
+				Slot slot;
+				try {
+					slot = pendingSlots.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				write(slot);
+				freeSlots.add(slot);
+			}
+		}
+	}
+}
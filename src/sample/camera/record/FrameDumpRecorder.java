@@ -0,0 +1,88 @@
+package sample.camera.record;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * M摜f[^MƂƂɂ̂܂܃t@CɋL^NX<br>
+ * L^t@CFileReplaySourceŌ̊Ԋû܂܍ĐłAlbg[Nŕ\ALv`̏ČłB<br>
+ * `́Awb_i"SCFD"Ao[WBe4oCgǰɁA摜̎M(8oCg)A(4oCg)Af[^irbOGfBAjB<br>
+ * iXbhZ[tł͂ȂB1Xbhgp邱Ɓj
+ * 
+ * @author k-daigo
+ */
+public class FrameDumpRecorder {
+
+	/** t@C̎ʎq("SCFD") */
+	public static final int MAGIC = 0x53434644;
+
+	/** `̃o[W */
+	public static final int VERSION = 1;
+
+	// ݂̃obt@TCY
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final DataOutputStream out;
+	private int frameCount = 0;
+	private boolean closed = false;
+
+	/**
+	 * L^Jn
+	 * 
+	 * @param output o̓t@C
+	 * @throws IOException
+	 */
+	public FrameDumpRecorder(File output) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output), BUFFER_SIZE));
+		try {
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+		} catch (IOException e) {
+			this.out.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 摜ǉ
+	 * 
+	 * @param data JPEGf[^
+	 * @param length JPEGf[^̒
+	 * @param time M
+	 * @throws IOException
+	 */
+	public void addFrame(byte[] data, int length, long time) throws IOException {
+		if (this.closed) {
+			throw new IOException("closed");
+		}
+
+		this.out.writeLong(time);
+		this.out.writeInt(length);
+		this.out.write(data, 0, length);
+		this.frameCount++;
+	}
+
+	/**
+	 * L^摜̐Ԃ
+	 * @return 摜̐
+	 */
+	public int getFrameCount() {
+		return this.frameCount;
+	}
+
+	/**
+	 * t@C
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.out.close();
+	}
+}
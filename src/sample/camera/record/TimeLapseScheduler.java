@@ -0,0 +1,291 @@
+package sample.camera.record;
+
+import java.io.IOException;
+
+import sample.camera.capture.Capture;
+import sample.camera.capture.SaveRequest;
+import sample.camera.capture.SaveService;
+import sample.camera.device.SocketCamera;
+import sample.camera.utils.CaptureNameUtil;
+import sample.camera.utils.JpegValidator;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Ԋu1摜ۑ^CvXBeNX<br>
+ * iVOgj<br>
+ * Be͊Jn̊Ԋu̔{ƂAԂɂxꂪݐςȂ悤ɂB<br>
+ * Be߂Ă܂͎BeA肱ڂƂĐB<br>
+ * vr[ŒỎ摜Vꍇ͂gpAȊO1擾ĐڑB<br>
+ * 擾摜JpegValidatorŌ؂AsȂ͎̂擾łȂ̂ƂĐB<br>
+ * Jn̓xɐi߁A~ɎcO̎BeXbh͎BeʂL^AۑȂB
+ * 
+ * @author k-daigo
+ */
+public class TimeLapseScheduler {
+	private static final String LOG_TAG = "TimeLapseScheduler:";
+
+	// vr[̉摜gpۂ́A摜̌Â̏i~bj
+	private static final long MAX_FRAME_AGE = 2000;
+
+	// instance
+	private static TimeLapseScheduler timeLapseScheduler;
+
+	private Thread worker = null;
+	private int generation = 0;
+	private long intervalMillis;
+	private long startTime;
+	private long lastSampleTime;
+	private int takenCount;
+	private int missedCount;
+	private int failedCount;
+
+	/**
+	 * RXgN^͉B
+	 */
+	private TimeLapseScheduler() {
+	}
+
+	/**
+	 * NX̃CX^XԂ
+	 * 
+	 * @return TimeLapseScheduler̃CX^X
+	 */
+	public static synchronized TimeLapseScheduler getInstance() {
+		if (timeLapseScheduler == null) {
+			timeLapseScheduler = new TimeLapseScheduler();
+		}
+		return timeLapseScheduler;
+	}
+
+	/**
+	 * ^CvXBeJn
+	 * 
+	 * @param context Context
+	 * @param camera J
+	 * @param intervalMillis BeԊui~bj
+	 */
+	public synchronized void start(Context context, SocketCamera camera, long intervalMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("intervalMillis: " + intervalMillis);
+		}
+		if (this.worker != null) {
+			throw new IllegalStateException("already running");
+		}
+
+		this.intervalMillis = intervalMillis;
+		this.startTime = System.currentTimeMillis();
+		this.lastSampleTime = -1;
+		this.takenCount = 0;
+		this.missedCount = 0;
+		this.failedCount = 0;
+
+		this.generation++;
+		this.worker = new Thread(new Worker(SaveService.getInstance(context), camera, this.generation), "TimeLapseScheduler");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * ^CvXBe~iBeXbh̏I͑҂Ȃj
+	 */
+	public synchronized void stop() {
+		if (this.worker != null) {
+			this.generation++;
+			this.worker.interrupt();
+			this.worker = null;
+		}
+	}
+
+	/**
+	 * BeԂ
+	 * @return	true	: Be
+	 * 			false	: ~
+	 */
+	public synchronized boolean isRunning() {
+		return this.worker != null;
+	}
+
+	/**
+	 * BeԂ
+	 * @return 
+	 */
+	public synchronized int getTakenCount() {
+		return this.takenCount;
+	}
+
+	/**
+	 * BeɊԂɍ킸BeȂ񐔂Ԃ
+	 * @return 
+	 */
+	public synchronized int getMissedCount() {
+		return this.missedCount;
+	}
+
+	/**
+	 * 摜擾łȂ񐔂Ԃ
+	 * @return 
+	 */
+	public synchronized int getFailedCount() {
+		return this.failedCount;
+	}
+
+	/**
+	 * Beʂ̊TvԂ
+	 * @return Tv
+	 */
+	public synchronized String getSummary() {
+		return "interval=" + this.intervalMillis + "ms taken=" + this.takenCount + " missed=" + this.missedCount
+				+ " failed=" + this.failedCount + " lastSample=" + this.lastSampleTime;
+	}
+
+	/**
+	 * w肵̎BepԂ
+	 */
+	private synchronized boolean isCurrent(int generation) {
+		return this.generation == generation;
+	}
+
+	/**
+	 * BeʂL^i~AĊJn̑O̎BeXbh̋L^͖j
+	 */
+	private synchronized void countSample(int generation, long time, boolean taken) {
+		if (this.generation != generation) {
+			return;
+		}
+		if (taken) {
+			this.takenCount++;
+			this.lastSampleTime = time;
+		} else {
+			this.failedCount++;
+		}
+	}
+
+	/**
+	 * 肱ڂL^
+	 */
+	private synchronized void countMissed(int generation, long missed) {
+		if (this.generation != generation) {
+			return;
+		}
+		this.missedCount += missed;
+	}
+
+	/**
+	 * BeXbh
+	 */
+	private class Worker implements Runnable {
+		private final SaveService saveService;
+		private final SocketCamera camera;
+		private final int generation;
+		private final JpegValidator validator = new JpegValidator();
+
+		private Worker(SaveService saveService, SocketCamera camera, int generation) {
+			this.saveService = saveService;
+			this.camera = camera;
+			this.generation = generation;
+		}
+
+		public void run() {
+			long interval;
+			long start;
+			synchronized (TimeLapseScheduler.this) {
+				interval = intervalMillis;
+				start = startTime;
+			}
+
+			long sample = 0;
+			while (!Thread.currentThread().isInterrupted() && isCurrent(this.generation)) {
+				// ̎Be܂ő҂
+				long scheduled = start + sample * interval;
+				long wait = scheduled - System.currentTimeMillis();
+				if (wait > 0) {
+					try {
+						Thread.sleep(wait);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+
+				long now = System.currentTimeMillis();
+				try {
+					if (!this.takeSample(now)) {
+						return;
+					}
+					countSample(this.generation, now, true);
+				} catch (IOException e) {
+					Log.w(LOG_TAG, "sample failed", e);
+					countSample(this.generation, now, false);
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				// Be߂͔΂
+				sample++;
+				long late = System.currentTimeMillis() - (start + sample * interval);
+				if (late > 0) {
+					long missed = late / interval + 1;
+					countMissed(this.generation, missed);
+					sample += missed;
+				}
+			}
+		}
+
+		/**
+		 * 1Beĕۑv
+		 * 
+		 * @return	true	: ۑv
+		 * 			false	: Be~ꂽߕۑȂ
+		 * @throws IOException 擾łȂAsȉ摜
+		 */
+		private boolean takeSample(long now) throws IOException, InterruptedException {
+			byte[] data = null;
+			if (!this.camera.isPlayingBack() && now - this.camera.getCapturTime() <= MAX_FRAME_AGE) {
+				data = this.camera.getCapturData();
+			}
+			if (data == null) {
+				data = this.camera.fetchFrame();
+			}
+			data = this.validate(data);
+
+			// 擾ɒ~AĊJnꂽꍇ͕ۑȂ
+			if (!isCurrent(this.generation)) {
+				return false;
+			}
+
+			Capture capture = new Capture(data, null, this.camera.getCameraId(), now);
+			// ω̖ʂœ摜΂Ȃ悤Ad͕ۑȂ
+			SaveRequest request = capture.toSaveRequest(CaptureNameUtil.nextName());
+			request.setSkipDuplicate(true);
+			this.saveService.put(request, null);
+			return true;
+		}
+
+		/**
+		 * 摜f[^؂AJPEGf[^̕Ԃ
+		 * 
+		 * @param data 摜f[^
+		 * @return JPEGf[^iOɗ]ȃf[^ꍇ͂̂܂ܕԂj
+		 * @throws IOException rŐ؂ĂAsȃf[^̏ꍇ
+		 */
+		private byte[] validate(byte[] data) throws IOException {
+			int status = this.validator.validate(data, data.length);
+			if (status == JpegValidator.STATUS_TRUNCATED) {
+				throw new IOException("truncated frame");
+			}
+			if (status != JpegValidator.STATUS_VALID) {
+				throw new IOException("invalid frame: " + this.validator.getReason());
+			}
+
+			int start = this.validator.getStart();
+			int end = this.validator.getEnd();
+			if (start == 0 && end == data.length) {
+				return data;
+			}
+			byte[] jpeg = new byte[end - start];
+			System.arraycopy(data, start, jpeg, 0, jpeg.length);
+			return jpeg;
+		}
+	}
+}
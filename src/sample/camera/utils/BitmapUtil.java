@@ -1,26 +1,136 @@
 package sample.camera.utils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 import android.graphics.Bitmap;
 
 /**
- * Bitmap[eBeBNX
+ * Bitmap[eBeBNX<br>
+ * GR[hɂ́AĂяõXg[A`lAv[obt@gpłB
  * 
  * @author k-daigo
  */
 public class BitmapUtil {
 
+	// v[obt@̐
+	private static final int POOL_SIZE = 4;
+
+	// obt@̏e
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	// `lɏoۂ̃obt@TCY
+	private static final int CHANNEL_BUFFER_SIZE = 16 * 1024;
+
+	// v[ɖ߂obt@̗eʂ̏î͔jj
+	private static final int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+
+	private static final EncodeBuffer[] pool = new EncodeBuffer[POOL_SIZE];
+	private static int pooledCount = 0;
+
 	/**
 	 * Bitmapbytezɕϊ
 	 * @param src ϊBitmp
 	 * @param format Bitmap.CompressFormatw肷
 	 * @param quality 掿
-	 * @return ϊbytez
+	 * @return ϊbyteziGR[hɎsꍇnullj
 	 */
 	public static byte[] bmp2data(Bitmap src, Bitmap.CompressFormat format, int quality) {
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-		src.compress(format, quality, outputStream);
-		return outputStream.toByteArray();
+		EncodeBuffer buffer = encode(src, format, quality);
+		if (buffer == null) {
+			return null;
+		}
+		try {
+			return buffer.toByteArray();
+		} finally {
+			recycleBuffer(buffer);
+		}
+	}
+
+	/**
+	 * Bitmapv[obt@ɃGR[h<br>
+	 * gprecycleBufferŃv[ɖ߂
+	 * 
+	 * @param src ϊBitmap
+	 * @param format Bitmap.CompressFormatw肷
+	 * @param quality 掿
+	 * @return GR[hʁiGR[hɎsꍇnullj
+	 */
+	public static EncodeBuffer encode(Bitmap src, Bitmap.CompressFormat format, int quality) {
+		EncodeBuffer buffer = obtainBuffer();
+		if (!src.compress(format, quality, buffer)) {
+			recycleBuffer(buffer);
+			return null;
+		}
+		return buffer;
+	}
+
+	/**
+	 * BitmapXg[ɒڃGR[h
+	 * 
+	 * @param src ϊBitmap
+	 * @param format Bitmap.CompressFormatw肷
+	 * @param quality 掿
+	 * @param out o
+	 * @return	true	: 
+	 * 			false	: s
+	 */
+	public static boolean compress(Bitmap src, Bitmap.CompressFormat format, int quality, OutputStream out) {
+		return src.compress(format, quality, out);
+	}
+
+	/**
+	 * Bitmap`lɒڃGR[h<br>
+	 * GR[_͏o߁Aobt@ă`lɏށi`l͕Ȃj
+	 * 
+	 * @param src ϊBitmap
+	 * @param format Bitmap.CompressFormatw肷
+	 * @param quality 掿
+	 * @param channel o
+	 * @throws IOException
+	 */
+	public static void compress(Bitmap src, Bitmap.CompressFormat format, int quality, FileChannel channel) throws IOException {
+		BufferedOutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), CHANNEL_BUFFER_SIZE);
+		if (!src.compress(format, quality, out)) {
+			throw new IOException("compress failed");
+		}
+		out.flush();
+	}
+
+	/**
+	 * v[obt@擾ȉꍇ͐j
+	 * 
+	 * @return ̃obt@
+	 */
+	public static EncodeBuffer obtainBuffer() {
+		synchronized (pool) {
+			if (pooledCount > 0) {
+				EncodeBuffer buffer = pool[--pooledCount];
+				pool[pooledCount] = null;
+				return buffer;
+			}
+		}
+		return new EncodeBuffer(INITIAL_BUFFER_SIZE);
+	}
+
+	/**
+	 * obt@v[ɖ߂
+	 * 
+	 * @param buffer obtainBufferAencodeŎ擾obt@
+	 */
+	public static void recycleBuffer(EncodeBuffer buffer) {
+		if (buffer.capacity() > MAX_POOLED_BUFFER_SIZE) {
+			return;
+		}
+
+		buffer.reset();
+		synchronized (pool) {
+			if (pooledCount < POOL_SIZE) {
+				pool[pooledCount++] = buffer;
+			}
+		}
 	}
 }
@@ -0,0 +1,206 @@
+package sample.camera.utils;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lv`IDƃt@C𐶐郆[eBeB<br>
+ * ID́ui~bj~4096{~b̘AԁvŁAbNg킸ɒPB<br>
+ * 1~b4096𒴂ꍇ⎞v߂ꍇ́Ã~b̒l肵ďdB<br>
+ * t@ĆuyyyyMMddHHmmssSSS_A4viUTCǰŒ蒷ŁAIDƑ݂ɕϊłB<br>
+ * ĎԂ^C][̕ύXŖOdȂ悤AUTCŐ`B<br>
+ * NɎv߂ꂽꍇɔÃt@C{@link #advance(String)}ŒʒmƁAID𕥂oB
+ * 
+ * @author k-daigo
+ */
+public class CaptureNameUtil {
+
+	// ~b̘AԂ̃rbg
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	// uyyyyMMddHHmmssv̒
+	private static final int PREFIX_LENGTH = 14;
+
+	// uyyyyMMddHHmmssSSS_nnnnv̒
+	private static final int NAME_LENGTH = PREFIX_LENGTH + 3 + 1 + 4;
+
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	// ŌɕoID
+	private static final AtomicLong lastId = new AtomicLong();
+
+	// `ς݂̕b܂ł̓ibςꍇ̂ݍ蒼j
+	private static volatile Prefix prefix = new Prefix(Long.MIN_VALUE, null);
+
+	/**
+	 * RXgN^͉B
+	 */
+	protected CaptureNameUtil() {
+	}
+
+	/**
+	 * VIDԂ
+	 * 
+	 * @return ȑOɕԂǂID傫ID
+	 */
+	public static long nextId() {
+		long now = System.currentTimeMillis() << SEQUENCE_BITS;
+		while (true) {
+			long last = lastId.get();
+			long next = now > last ? now : last + 1;
+			if (lastId.compareAndSet(last, next)) {
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * ȍ~ɕoIDÃt@CID傫
+	 * 
+	 * @param name t@CigqĂ悢j
+	 */
+	public static void advance(String name) {
+		long id = parseId(name);
+		while (true) {
+			long last = lastId.get();
+			if (id <= last || lastId.compareAndSet(last, id)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Vt@CigqjԂ
+	 * 
+	 * @return t@C
+	 */
+	public static String nextName() {
+		return toName(nextId());
+	}
+
+	/**
+	 * ID̓Ԃ
+	 * 
+	 * @param id ID
+	 * @return i~bj
+	 */
+	public static long getTime(long id) {
+		return id >>> SEQUENCE_BITS;
+	}
+
+	/**
+	 * ID̃~b̘AԂԂ
+	 * 
+	 * @param id ID
+	 * @return A
+	 */
+	public static int getSequence(long id) {
+		return (int) (id & SEQUENCE_MASK);
+	}
+
+	/**
+	 * IDt@Cigqjɕϊ
+	 * 
+	 * @param id ID
+	 * @return t@CiyyyyMMddHHmmssSSS_nnnnj
+	 */
+	public static String toName(long id) {
+		long millis = getTime(id);
+		long second = millis / 1000;
+
+		Prefix current = prefix;
+		if (current.second != second) {
+			// ̃Xbhɍ蒼Ăʂ͓߁Ar͂Ȃ
+			current = new Prefix(second, formatSecond(second * 1000));
+			prefix = current;
+		}
+
+		char[] name = new char[NAME_LENGTH];
+		current.text.getChars(0, PREFIX_LENGTH, name, 0);
+		putDigits(name, PREFIX_LENGTH, 3, (int) (millis % 1000));
+		name[PREFIX_LENGTH + 3] = '_';
+		putDigits(name, PREFIX_LENGTH + 4, 4, getSequence(id));
+		return new String(name);
+	}
+
+	/**
+	 * t@CIDɕϊ
+	 * 
+	 * @param name t@CigqĂ悢j
+	 * @return IDĩNXŐ`łȂꍇ-1j
+	 */
+	public static long parseId(String name) {
+		if (name == null || name.length() < NAME_LENGTH || name.charAt(PREFIX_LENGTH + 3) != '_') {
+			return -1;
+		}
+		if (name.length() > NAME_LENGTH && name.charAt(NAME_LENGTH) != '.') {
+			return -1;
+		}
+
+		int[] fields = new int[8];
+		int[] offsets = { 0, 4, 6, 8, 10, 12, PREFIX_LENGTH, PREFIX_LENGTH + 4 };
+		int[] digits = { 4, 2, 2, 2, 2, 2, 3, 4 };
+		for (int i = 0; i < fields.length; i++) {
+			for (int j = offsets[i]; j < offsets[i] + digits[i]; j++) {
+				char c = name.charAt(j);
+				if (c < '0' || c > '9') {
+					return -1;
+				}
+				fields[i] = fields[i] * 10 + (c - '0');
+			}
+		}
+
+		if (fields[7] > SEQUENCE_MASK) {
+			return -1;
+		}
+
+		Calendar calendar = Calendar.getInstance(UTC);
+		calendar.clear();
+		calendar.set(fields[0], fields[1] - 1, fields[2], fields[3], fields[4], fields[5]);
+		long millis = calendar.getTimeInMillis() + fields[6];
+		return millis << SEQUENCE_BITS | fields[7];
+	}
+
+	/**
+	 * uyyyyMMddHHmmssviUTCjɐ`i24ԕ\Lj
+	 */
+	private static String formatSecond(long millis) {
+		Calendar calendar = Calendar.getInstance(UTC);
+		calendar.setTimeInMillis(millis);
+
+		char[] text = new char[PREFIX_LENGTH];
+		putDigits(text, 0, 4, calendar.get(Calendar.YEAR));
+		putDigits(text, 4, 2, calendar.get(Calendar.MONTH) + 1);
+		putDigits(text, 6, 2, calendar.get(Calendar.DAY_OF_MONTH));
+		putDigits(text, 8, 2, calendar.get(Calendar.HOUR_OF_DAY));
+		putDigits(text, 10, 2, calendar.get(Calendar.MINUTE));
+		putDigits(text, 12, 2, calendar.get(Calendar.SECOND));
+		return new String(text);
+	}
+
+	/**
+	 * 0߂
+	 */
+	private static void putDigits(char[] buffer, int offset, int digits, int value) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	/**
+	 * `ς݂̕b܂ł̓
+	 */
+	private static class Prefix {
+		private final long second;
+		private final String text;
+
+		private Prefix(long second, String text) {
+			this.second = second;
+			this.text = text;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package sample.camera.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * GR[hʂ󂯎ėp\ȃobt@<br>
+ * ByteArrayOutputStreamƈقȂ̔ẑ܂܎QƂłARs[ɏoB
+ * 
+ * @author k-daigo
+ */
+public class EncodeBuffer extends OutputStream {
+	private byte[] data;
+	private int size;
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param capacity e
+	 */
+	public EncodeBuffer(int capacity) {
+		this.data = new byte[capacity];
+	}
+
+	@Override
+	public void write(int b) {
+		this.ensureCapacity(this.size + 1);
+		this.data[this.size++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		this.ensureCapacity(this.size + len);
+		System.arraycopy(b, off, this.data, this.size, len);
+		this.size += len;
+	}
+
+	/**
+	 * ̔zԂiLȃf[^size()܂łŁAreset⏑݂œe͕ςj
+	 * @return ̔z
+	 */
+	public byte[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * ܂ꂽf[^̃TCYԂ
+	 * @return TCYibytej
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * ̔z̗eʂԂ
+	 * @return eʁibytej
+	 */
+	public int capacity() {
+		return this.data.length;
+	}
+
+	/**
+	 * f[^jieʂ͂̂܂܁j
+	 */
+	public void reset() {
+		this.size = 0;
+	}
+
+	/**
+	 * f[^Xg[ɏo
+	 * 
+	 * @param out o
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(this.data, 0, this.size);
+	}
+
+	/**
+	 * f[^`lɏo
+	 * 
+	 * @param channel o
+	 * @throws IOException
+	 */
+	public void writeTo(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(this.data, 0, this.size);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * f[^̃Rs[Ԃ
+	 * @return f[^
+	 */
+	public byte[] toByteArray() {
+		byte[] copy = new byte[this.size];
+		System.arraycopy(this.data, 0, copy, 0, this.size);
+		return copy;
+	}
+
+	/**
+	 * eʂmۂiȂꍇ͔{Ɋgj
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.data.length) {
+			byte[] grown = new byte[Math.max(capacity, this.data.length * 2)];
+			System.arraycopy(this.data, 0, grown, 0, this.size);
+			this.data = grown;
+		}
+	}
+}
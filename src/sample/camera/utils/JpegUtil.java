@@ -0,0 +1,231 @@
+package sample.camera.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * JPEG[eBeBNX
+ * 
+ * @author k-daigo
+ */
+public class JpegUtil {
+	/** SOI}[J */
+	public static final int MARKER_SOI = 0xD8;
+	/** APP0}[J */
+	public static final int MARKER_APP0 = 0xE0;
+	/** APP1}[J */
+	public static final int MARKER_APP1 = 0xE1;
+
+	// EXIF̃^O
+	private static final int TAG_MODEL = 0x0110;
+	private static final int TAG_DATE_TIME = 0x0132;
+	private static final int TYPE_ASCII = 2;
+
+	/**
+	 * RXgN^͉B
+	 */
+	protected JpegUtil() {
+	}
+
+	/**
+	 * JPEGf[^ԂiSOI}[Ĵ݊mFj
+	 * 
+	 * @param data f[^
+	 * @param offset Jnʒu
+	 * @param length 
+	 * @return	true	: JPEGf[^
+	 * 			false	: JPEGf[^łȂ
+	 */
+	public static boolean isJpeg(byte[] data, int offset, int length) {
+		return length >= 4 && (data[offset] & 0xff) == 0xFF && (data[offset + 1] & 0xff) == MARKER_SOI;
+	}
+
+	/**
+	 * t[wb_iSOF}[Jj摜TCY擾ifR[h͍sȂj
+	 * 
+	 * @param data JPEGf[^
+	 * @param offset Jnʒu
+	 * @param length 
+	 * @param size 摜TCY̊i[iȀj
+	 * @return	true	: 擾
+	 * 			false	: t[wb_Ȃ
+	 */
+	public static boolean readSize(byte[] data, int offset, int length, int[] size) {
+		if (!isJpeg(data, offset, length)) {
+			return false;
+		}
+
+		int end = offset + length;
+		int pos = offset + 2;
+		while (pos + 4 <= end) {
+			if ((data[pos] & 0xff) != 0xFF) {
+				return false;
+			}
+			int marker = data[pos + 1] & 0xff;
+			if (marker == 0xFF) {
+				// tBoCg
+				pos++;
+				continue;
+			}
+
+			int segmentLength = (data[pos + 2] & 0xff) << 8 | (data[pos + 3] & 0xff);
+			if (isStartOfFrame(marker)) {
+				if (pos + 9 > end) {
+					return false;
+				}
+				size[1] = (data[pos + 5] & 0xff) << 8 | (data[pos + 6] & 0xff);
+				size[0] = (data[pos + 7] & 0xff) << 8 | (data[pos + 8] & 0xff);
+				return true;
+			}
+			pos += 2 + segmentLength;
+		}
+		return false;
+	}
+
+	/**
+	 * SOF}[JԂiDHTAJPGADAC͏j
+	 */
+	static boolean isStartOfFrame(int marker) {
+		return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+	}
+
+	/**
+	 * JPEGf[^ăGR[hɏo͂<br>
+	 * f[^EXIFꍇ́AJIDƎBeEXIFt
+	 * 
+	 * @param data JPEGf[^
+	 * @param offset Jnʒu
+	 * @param length 
+	 * @param cameraId JIDiEXIFModelɊi[j
+	 * @param time BeiEXIFDateTimeɊi[j
+	 * @param out o͐
+	 * @throws IOException
+	 */
+	public static void writeWithExif(byte[] data, int offset, int length, String cameraId, long time, OutputStream out) throws IOException {
+		if (!isJpeg(data, offset, length)) {
+			throw new IOException("not a jpeg");
+		}
+
+		// JFIF(APP0)ꍇ͂̒ɑ}
+		int insert = 2;
+		if (isMarker(data, offset + insert, length - insert, MARKER_APP0)) {
+			insert += 2 + ((data[offset + insert + 2] & 0xff) << 8 | (data[offset + insert + 3] & 0xff));
+		}
+
+		// EXIFꍇ͂̂܂܏o͂
+		if (insert >= length || isMarker(data, offset + insert, length - insert, MARKER_APP1)) {
+			out.write(data, offset, length);
+			return;
+		}
+
+		out.write(data, offset, insert);
+		out.write(createExifSegment(cameraId, time));
+		out.write(data, offset + insert, length - insert);
+	}
+
+	/**
+	 * wʒuw̃}[JZOgԂ
+	 */
+	private static boolean isMarker(byte[] data, int offset, int remaining, int marker) {
+		return remaining >= 4 && (data[offset] & 0xff) == 0xFF && (data[offset + 1] & 0xff) == marker;
+	}
+
+	/**
+	 * EXIFAPP1ZOg𐶐iIFD0ModelADateTimê݊i[j
+	 * 
+	 * @param cameraId JID
+	 * @param time Be
+	 * @return APP1ZOg
+	 */
+	static byte[] createExifSegment(String cameraId, long time) {
+		byte[] model = toAscii(cameraId);
+		byte[] dateTime = toAscii(new SimpleDateFormat("yyyy:MM:dd HH:mm:ss").format(new Date(time)));
+
+		// TIFFwb_(8) + Gg(2) + Gg(12 * 2) + IFD(4) + li4byte𒴂̂̂݁j
+		int ifdSize = 2 + 12 * 2 + 4;
+		int modelOffset = 8 + ifdSize;
+		int dateTimeOffset = modelOffset + externalSize(model);
+		int tiffSize = dateTimeOffset + externalSize(dateTime);
+		int segmentLength = 2 + 6 + tiffSize;
+
+		byte[] segment = new byte[2 + segmentLength];
+		int pos = 0;
+		segment[pos++] = (byte) 0xFF;
+		segment[pos++] = (byte) MARKER_APP1;
+		pos = putShort(segment, pos, segmentLength);
+		segment[pos++] = 'E';
+		segment[pos++] = 'x';
+		segment[pos++] = 'i';
+		segment[pos++] = 'f';
+		segment[pos++] = 0;
+		segment[pos++] = 0;
+
+		// TIFFwb_irbOGfBAj
+		int tiff = pos;
+		segment[pos++] = 'M';
+		segment[pos++] = 'M';
+		pos = putShort(segment, pos, 42);
+		pos = putInt(segment, pos, 8);
+
+		// IFD0
+		pos = putShort(segment, pos, 2);
+		pos = putEntry(segment, pos, tiff, TAG_MODEL, model, modelOffset);
+		pos = putEntry(segment, pos, tiff, TAG_DATE_TIME, dateTime, dateTimeOffset);
+		putInt(segment, pos, 0);
+		return segment;
+	}
+
+	/**
+	 * IFD̊OɊi[l̃TCYԂi4byteȉ̒l̓GgɊi[j
+	 */
+	private static int externalSize(byte[] value) {
+		return value.length > 4 ? value.length : 0;
+	}
+
+	/**
+	 * NULI[ASCIIɕϊ
+	 */
+	private static byte[] toAscii(String value) {
+		byte[] ascii = new byte[value.length() + 1];
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			ascii[i] = (byte) (c < 0x80 ? c : '?');
+		}
+		return ascii;
+	}
+
+	/**
+	 * ASCII^IFDGgƒl
+	 */
+	private static int putEntry(byte[] buffer, int pos, int tiff, int tag, byte[] value, int valueOffset) {
+		pos = putShort(buffer, pos, tag);
+		pos = putShort(buffer, pos, TYPE_ASCII);
+		pos = putInt(buffer, pos, value.length);
+		if (value.length <= 4) {
+			System.arraycopy(value, 0, buffer, pos, value.length);
+			return pos + 4;
+		}
+
+		System.arraycopy(value, 0, buffer, tiff + valueOffset, value.length);
+		return putInt(buffer, pos, valueOffset);
+	}
+
+	/**
+	 * 2byterbOGfBAŏ
+	 */
+	private static int putShort(byte[] buffer, int pos, int value) {
+		buffer[pos++] = (byte) (value >> 8);
+		buffer[pos++] = (byte) value;
+		return pos;
+	}
+
+	/**
+	 * 4byterbOGfBAŏ
+	 */
+	private static int putInt(byte[] buffer, int pos, int value) {
+		pos = putShort(buffer, pos, value >>> 16);
+		return putShort(buffer, pos, value & 0xffff);
+	}
+}
@@ -0,0 +1,343 @@
+package sample.camera.utils;
+
+import java.util.zip.CRC32;
+
+/**
+ * MJPEGf[^fR[hOɌ؂NX<br>
+ * }[Jƃt[wb_𑖍݂̂ŃfR[h͍sȂ߁Asȃf[^ᕉׂŔjłB<br>
+ * rŐ؂ꂽf[^(STATUS_TRUNCATED)́AEOI}[Jĕ\łB<br>
+ * f[^̐擪ɒCRC̃wb_i"SCFH"AACRC32Be4oCg̃rbOGfBAjꍇ́A؂B<br>
+ * ،ʂ̌̓CX^XiJjɐB<br>
+ * iXbhZ[tł͂ȂB؂1XbhsƁj
+ * 
+ * @author k-daigo
+ */
+public class JpegValidator {
+
+	/** ،ʁF */
+	public static final int STATUS_VALID = 0;
+	/** ،ʁF摜f[^̓rŐ؂ĂiEOI}[J₦Ε\łj */
+	public static final int STATUS_TRUNCATED = 1;
+	/** ،ʁFsȃf[^ */
+	public static final int STATUS_CORRUPT = 2;
+
+	/** wb_̎ʎq("SCFH") */
+	public static final int HEADER_MAGIC = 0x53434648;
+	/** wb_̃TCY */
+	public static final int HEADER_SIZE = 12;
+
+	// }[J
+	private static final int MARKER_TEM = 0x01;
+	private static final int MARKER_RST0 = 0xD0;
+	private static final int MARKER_RST7 = 0xD7;
+	private static final int MARKER_EOI = 0xD9;
+	private static final int MARKER_SOS = 0xDA;
+
+	private final CRC32 crc = new CRC32();
+
+	// Ǒ،
+	private int status = STATUS_CORRUPT;
+	private int start;
+	private int end;
+	private int width;
+	private int height;
+	private String reason;
+
+	// ،ʖ̌iQƂ͑Xbhsj
+	private volatile long validCount = 0;
+	private volatile long truncatedCount = 0;
+	private volatile long corruptCount = 0;
+	private volatile long salvagedCount = 0;
+
+	/**
+	 * Mf[^؂
+	 * 
+	 * @param data Mf[^
+	 * @param length f[^̒
+	 * @return	STATUS_VALID		: igetStart()getEnd()܂łJPEGf[^j
+	 * 			STATUS_TRUNCATED	: rŐ؂ĂigetEnd()͕₤EOI}[J̈ʒuj
+	 * 			STATUS_CORRUPT		: sȃf[^igetReason()ŗRԂj
+	 */
+	public int validate(byte[] data, int length) {
+		this.start = 0;
+		this.end = 0;
+		this.width = -1;
+		this.height = -1;
+		this.reason = null;
+
+		int status = this.check(data, length);
+		this.status = status;
+		if (status == STATUS_VALID) {
+			this.validCount++;
+		} else if (status == STATUS_TRUNCATED) {
+			this.truncatedCount++;
+		} else {
+			this.corruptCount++;
+		}
+		return status;
+	}
+
+	/**
+	 * rŐ؂ꂽf[^̖EOI}[J₤
+	 * 
+	 * @param data OɌ؂f[^igetEnd() + 2oCgȏ̗̈悪Kvj
+	 * @return JPEGf[^̏Iʒu
+	 */
+	public int salvage(byte[] data) {
+		if (this.status != STATUS_TRUNCATED) {
+			throw new IllegalStateException("not truncated");
+		}
+
+		data[this.end] = (byte) 0xFF;
+		data[this.end + 1] = (byte) MARKER_EOI;
+		this.end += 2;
+		this.status = STATUS_VALID;
+		this.salvagedCount++;
+		return this.end;
+	}
+
+	/**
+	 * f[^؂
+	 */
+	private int check(byte[] data, int length) {
+		int limit = length;
+		if (length >= HEADER_SIZE && readInt(data, 0) == HEADER_MAGIC) {
+			int expected = readInt(data, 4);
+			if (expected <= 0) {
+				return this.corrupt("invalid header length");
+			}
+
+			this.start = HEADER_SIZE;
+			if (length - HEADER_SIZE >= expected) {
+				limit = HEADER_SIZE + expected;
+
+				// CRC0̏ꍇ͌؂Ȃ
+				int expectedCrc = readInt(data, 8);
+				if (expectedCrc != 0) {
+					this.crc.reset();
+					this.crc.update(data, HEADER_SIZE, expected);
+					if ((int) this.crc.getValue() != expectedCrc) {
+						return this.corrupt("crc mismatch");
+					}
+				}
+			}
+		}
+
+		if (!JpegUtil.isJpeg(data, this.start, limit - this.start)) {
+			return this.corrupt("no SOI marker");
+		}
+
+		boolean frame = false;
+		boolean scanned = false;
+		int pos = this.start + 2;
+		while (true) {
+			if (pos + 2 > limit) {
+				return this.corrupt("truncated before EOI marker");
+			}
+			if ((data[pos] & 0xff) != 0xFF) {
+				return this.corrupt("marker expected");
+			}
+
+			int marker = data[pos + 1] & 0xff;
+			if (marker == 0xFF) {
+				// tBoCg
+				pos++;
+				continue;
+			}
+			if (marker == MARKER_EOI) {
+				if (!scanned) {
+					return this.corrupt("no scan data");
+				}
+				// EOI}[Jȍ~̗]ȃf[^͏
+				this.end = pos + 2;
+				return STATUS_VALID;
+			}
+			if (marker == MARKER_TEM || (marker >= MARKER_RST0 && marker <= MARKER_RST7)) {
+				// Ȃ}[J
+				pos += 2;
+				continue;
+			}
+			if (marker == 0x00 || marker == JpegUtil.MARKER_SOI) {
+				return this.corrupt("unexpected marker");
+			}
+
+			if (pos + 4 > limit) {
+				return this.corrupt("truncated segment");
+			}
+			int segmentLength = (data[pos + 2] & 0xff) << 8 | (data[pos + 3] & 0xff);
+			int next = pos + 2 + segmentLength;
+			if (segmentLength < 2) {
+				return this.corrupt("invalid segment length");
+			}
+			if (next > limit) {
+				return this.corrupt("truncated segment");
+			}
+
+			if (JpegUtil.isStartOfFrame(marker)) {
+				if (!this.checkFrameHeader(data, pos, segmentLength)) {
+					return this.corrupt("invalid frame header");
+				}
+				frame = true;
+			}
+			pos = next;
+
+			if (marker == MARKER_SOS) {
+				if (!frame) {
+					return this.corrupt("scan before frame header");
+				}
+
+				int scanStart = pos;
+				pos = skipEntropyData(data, pos, limit);
+				if (pos >= limit) {
+					// 摜f[^̓rŐ؂Ăi0xFF̏ꍇ͏j
+					int salvageEnd = (data[limit - 1] & 0xff) == 0xFF ? limit - 1 : limit;
+					if (salvageEnd <= scanStart) {
+						return this.corrupt("truncated before scan data");
+					}
+					this.end = salvageEnd;
+					return STATUS_TRUNCATED;
+				}
+				scanned = true;
+			}
+		}
+	}
+
+	/**
+	 * t[wb_(SOF)؂A摜TCY擾
+	 */
+	private boolean checkFrameHeader(byte[] data, int pos, int segmentLength) {
+		if (segmentLength < 8) {
+			return false;
+		}
+
+		int precision = data[pos + 4] & 0xff;
+		int height = (data[pos + 5] & 0xff) << 8 | (data[pos + 6] & 0xff);
+		int width = (data[pos + 7] & 0xff) << 8 | (data[pos + 8] & 0xff);
+		int components = data[pos + 9] & 0xff;
+		if ((precision != 8 && precision != 12) || width == 0 || height == 0) {
+			return false;
+		}
+		if (components < 1 || components > 4 || segmentLength != 8 + 3 * components) {
+			return false;
+		}
+
+		this.width = width;
+		this.height = height;
+		return true;
+	}
+
+	/**
+	 * Ggs[f[^ǂݔ΂
+	 * 
+	 * @return ̃}[J̈ʒuif[^̏I[ɒBꍇlimitj
+	 */
+	private static int skipEntropyData(byte[] data, int pos, int limit) {
+		while (pos < limit) {
+			if (data[pos] != (byte) 0xFF) {
+				pos++;
+				continue;
+			}
+			if (pos + 1 >= limit) {
+				return limit;
+			}
+
+			int marker = data[pos + 1] & 0xff;
+			if (marker == 0x00 || (marker >= MARKER_RST0 && marker <= MARKER_RST7)) {
+				// X^btBOAX^[g}[J
+				pos += 2;
+			} else if (marker == 0xFF) {
+				pos++;
+			} else {
+				return pos;
+			}
+		}
+		return limit;
+	}
+
+	/**
+	 * sȃf[^ƂėRݒ肷
+	 */
+	private int corrupt(String reason) {
+		this.reason = reason;
+		return STATUS_CORRUPT;
+	}
+
+	/**
+	 * rbOGfBA4oCgǂݍ
+	 */
+	private static int readInt(byte[] data, int pos) {
+		return (data[pos] & 0xff) << 24 | (data[pos + 1] & 0xff) << 16 | (data[pos + 2] & 0xff) << 8 | (data[pos + 3] & 0xff);
+	}
+
+	/**
+	 * OɌ؂JPEGf[^̊JnʒuԂ
+	 * @return Jnʒuiwb_ꍇ̓wb_̒j
+	 */
+	public int getStart() {
+		return this.start;
+	}
+
+	/**
+	 * OɌ؂JPEGf[^̏IʒuԂ
+	 * @return Iʒui܂܂Ȃj
+	 */
+	public int getEnd() {
+		return this.end;
+	}
+
+	/**
+	 * OɌ؂摜̕Ԃ
+	 * @return it[wb_ꍇ-1j
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * OɌ؂摜̍Ԃ
+	 * @return it[wb_ꍇ-1j
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Ǒ؂ŕsƂRԂ
+	 * @return RisłȂꍇnullj
+	 */
+	public String getReason() {
+		return this.reason;
+	}
+
+	/**
+	 * ȃf[^̌Ԃ
+	 * @return 
+	 */
+	public long getValidCount() {
+		return this.validCount;
+	}
+
+	/**
+	 * rŐ؂ꂽf[^̌Ԃ
+	 * @return iEOI}[Ĵ܂ށj
+	 */
+	public long getTruncatedCount() {
+		return this.truncatedCount;
+	}
+
+	/**
+	 * sȃf[^̌Ԃ
+	 * @return 
+	 */
+	public long getCorruptCount() {
+		return this.corruptCount;
+	}
+
+	/**
+	 * EOI}[Jf[^̌Ԃ
+	 * @return 
+	 */
+	public long getSalvagedCount() {
+		return this.salvagedCount;
+	}
+}
@@ -0,0 +1,213 @@
+package sample.camera.utils;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.graphics.Bitmap;
+
+/**
+ * BitmapɃGR[hNX<br>
+ * GR[hCPŨRÃXbhōsAʂ͗vɎoB<br>
+ * oĂȂvƁAGR[h̉fɏAꍇ͗v҂B
+ * 
+ * <pre>
+ * encoder.submit(bitmap, Bitmap.CompressFormat.PNG, 100, tag);
+ * ...
+ * ParallelEncoder.Result result = encoder.take();
+ * result.getBuffer().writeTo(out);
+ * BitmapUtil.recycleBuffer(result.getBuffer());
+ * </pre>
+ * 
+ * @author k-daigo
+ */
+public class ParallelEncoder {
+
+	// o҂̗vivj
+	private final LinkedList<Result> pending = new LinkedList<Result>();
+	private final ExecutorService executor;
+	private final int maxPending;
+	private final long maxPixels;
+	private long inFlightPixels = 0;
+	private boolean closed = false;
+
+	/**
+	 * RXgN^iRÃXbhgpj
+	 * 
+	 * @param maxPending oĂȂv̏
+	 * @param maxPixels GR[h̉f̏
+	 */
+	public ParallelEncoder(int maxPending, long maxPixels) {
+		this(Runtime.getRuntime().availableProcessors(), maxPending, maxPixels);
+	}
+
+	/**
+	 * RXgN^
+	 * 
+	 * @param threadCount GR[hXbh
+	 * @param maxPending oĂȂv̏
+	 * @param maxPixels GR[h̉f̏i1Œꍇ́AɃGR[ĥ̂Ύ󂯕tj
+	 */
+	public ParallelEncoder(int threadCount, int maxPending, long maxPixels) {
+		if (threadCount < 1 || maxPending < 1 || maxPixels < 1) {
+			throw new IllegalArgumentException("threadCount: " + threadCount + " maxPending: " + maxPending + " maxPixels: " + maxPixels);
+		}
+		this.maxPending = maxPending;
+		this.maxPixels = maxPixels;
+		this.executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ParallelEncoder");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * GR[hv<br>
+	 * 𒴂ꍇ͋󂭂܂ő҂BXbhtakesꍇAtakeɗv鐔maxPendingȉɂ邱
+	 * 
+	 * @param src ϊBitmapiGR[hI܂ŕύXȂƁj
+	 * @param format Bitmap.CompressFormatw肷
+	 * @param quality 掿
+	 * @param tag ʂƑΉtlinullj
+	 * @throws InterruptedException
+	 */
+	public void submit(Bitmap src, Bitmap.CompressFormat format, int quality, Object tag) throws InterruptedException {
+		Result result = new Result(src, format, quality, tag);
+		synchronized (this) {
+			while (!this.closed && (this.pending.size() >= this.maxPending
+					|| (this.inFlightPixels > 0 && this.inFlightPixels + result.pixels > this.maxPixels))) {
+				wait();
+			}
+			if (this.closed) {
+				throw new IllegalStateException("closed");
+			}
+			this.inFlightPixels += result.pixels;
+			this.pending.addLast(result);
+		}
+		this.executor.execute(result);
+	}
+
+	/**
+	 * łÂv̌ʂoiGR[hI܂ő҂j<br>
+	 * ʂ̃obt@͎gpBitmapUtil.recycleBufferŃv[ɖ߂
+	 * 
+	 * @return ʁivꍇnullj
+	 * @throws IOException GR[hɎsꍇiʂ͎oς݂ƂȂj
+	 * @throws InterruptedException
+	 */
+	public Result take() throws IOException, InterruptedException {
+		Result result;
+		synchronized (this) {
+			if (this.pending.isEmpty()) {
+				return null;
+			}
+			result = this.pending.getFirst();
+			while (!result.done) {
+				wait();
+			}
+			this.pending.removeFirst();
+			notifyAll();
+		}
+
+		if (result.error != null) {
+			throw result.error;
+		}
+		return result;
+	}
+
+	/**
+	 * oĂȂvԂ
+	 * @return v
+	 */
+	public synchronized int getPendingCount() {
+		return this.pending.size();
+	}
+
+	/**
+	 * GR[h̃XbhIioĂȂʂ͔jj
+	 */
+	public void close() {
+		synchronized (this) {
+			this.closed = true;
+			for (Result result : this.pending) {
+				if (result.done && result.buffer != null) {
+					BitmapUtil.recycleBuffer(result.buffer);
+				}
+			}
+			this.pending.clear();
+			notifyAll();
+		}
+		this.executor.shutdown();
+	}
+
+	/**
+	 * GR[h
+	 */
+	private synchronized void finished(Result result) {
+		this.inFlightPixels -= result.pixels;
+		result.done = true;
+		notifyAll();
+	}
+
+	/**
+	 * GR[h̗vƌ
+	 */
+	public class Result implements Runnable {
+		private final Object tag;
+		private final long pixels;
+		private Bitmap src;
+		private Bitmap.CompressFormat format;
+		private int quality;
+		private EncodeBuffer buffer;
+		private IOException error;
+		private boolean done = false;
+
+		private Result(Bitmap src, Bitmap.CompressFormat format, int quality, Object tag) {
+			this.src = src;
+			this.format = format;
+			this.quality = quality;
+			this.tag = tag;
+			this.pixels = (long) src.getWidth() * src.getHeight();
+		}
+
+		/**
+		 * vɎw肵lԂ
+		 * @return l
+		 */
+		public Object getTag() {
+			return this.tag;
+		}
+
+		/**
+		 * GR[hʂԂ
+		 * @return GR[h
+		 */
+		public EncodeBuffer getBuffer() {
+			return this.buffer;
+		}
+
+		public void run() {
+			EncodeBuffer encoded = BitmapUtil.obtainBuffer();
+			try {
+				if (BitmapUtil.compress(this.src, this.format, this.quality, encoded)) {
+					this.buffer = encoded;
+				} else {
+					this.error = new IOException("compress failed");
+					BitmapUtil.recycleBuffer(encoded);
+				}
+			} catch (RuntimeException e) {
+				this.error = new IOException("compress failed: " + e);
+				BitmapUtil.recycleBuffer(encoded);
+			} finally {
+				// ̉摜͈ȌQƂȂ
+				this.src = null;
+				this.format = null;
+				finished(this);
+			}
+		}
+	}
+}